@@ -3,6 +3,7 @@ plugins {
     id("com.diffplug.spotless") version "6.25.0"
     id("com.github.johnrengelman.shadow") version "8.1.1"
     id("xyz.jpenilla.run-paper") version "2.2.2"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "me.bomb.parkourbeat"
@@ -28,6 +29,9 @@ dependencies {
     implementation("dev.rollczi:litecommands-bukkit:3.4.0")
 
     annotationProcessor("org.projectlombok:lombok:1.18.30")
+
+    // Bukkit classes used by the benchmarked code
+    jmh("com.destroystokyo.paper:paper-api:1.16.5-R0.1-SNAPSHOT")
 }
 
 configurations {
@@ -51,6 +55,13 @@ tasks {
     }
 }
 
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.add("gc") // Allocation rate matters as much as time for the hot paths
+}
+
 tasks.build {
     dependsOn("shadowJar")
 }
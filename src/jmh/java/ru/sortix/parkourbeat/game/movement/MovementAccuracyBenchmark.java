@@ -0,0 +1,173 @@
+package ru.sortix.parkourbeat.game.movement;
+
+import org.bukkit.Color;
+import org.bukkit.Location;
+import org.bukkit.util.Vector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import ru.sortix.parkourbeat.levels.DirectionChecker;
+import ru.sortix.parkourbeat.levels.MovementSegments;
+import ru.sortix.parkourbeat.levels.Waypoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves per second of a single runner on one core: {@link MovementAccuracyChecker} on the shared
+ * {@link MovementSegments} table against the former checker reading waypoints and allocating vectors.
+ * Run with {@code ./gradlew jmh}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+public class MovementAccuracyBenchmark {
+    /**
+     * Moves sampled along the track, about ten per block like a sprinting player
+     */
+    private static final int MOVES_PER_BLOCK = 10;
+
+    @Param({"8", "64"})
+    private int waypointsAmount;
+
+    private double[] movesX;
+    private double[] movesZ;
+    private Location[] moveLocations;
+    private int move;
+
+    private MovementAccuracyChecker checker;
+    private LegacyMovementAccuracyChecker legacyChecker;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<Waypoint> waypoints = new ArrayList<>();
+        double z = 0;
+        for (int i = 0; i < this.waypointsAmount; i++) {
+            z += random.nextDouble() * 4 - 2;
+            waypoints.add(new Waypoint(new Location(null, i * 4, 64, z), 0, Color.LIME));
+        }
+
+        int movesAmount = (this.waypointsAmount - 1) * 4 * MOVES_PER_BLOCK;
+        this.movesX = new double[movesAmount];
+        this.movesZ = new double[movesAmount];
+        this.moveLocations = new Location[movesAmount];
+        for (int i = 0; i < movesAmount; i++) {
+            double x = i / (double) MOVES_PER_BLOCK;
+            int segment = Math.min((int) (x / 4), this.waypointsAmount - 2);
+            double startZ = waypoints.get(segment).getLocation().getZ();
+            double endZ = waypoints.get(segment + 1).getLocation().getZ();
+            double pathZ = startZ + (endZ - startZ) * (x / 4 - segment);
+            this.movesX[i] = x;
+            this.movesZ[i] = pathZ + random.nextGaussian() * 0.2;
+            this.moveLocations[i] = new Location(null, this.movesX[i], 64, this.movesZ[i]);
+        }
+
+        DirectionChecker directionChecker = DirectionChecker.of(DirectionChecker.Direction.POSITIVE_X);
+        this.checker = new MovementAccuracyChecker(MovementSegments.compile(waypoints, directionChecker));
+        this.legacyChecker = new LegacyMovementAccuracyChecker(waypoints);
+    }
+
+    private int nextMove() {
+        int result = this.move;
+        if (++this.move == this.movesX.length) {
+            this.move = 0;
+            this.checker.reset();
+            this.legacyChecker.reset();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double segmentsTable() {
+        int move = this.nextMove();
+        this.checker.onPlayerLocationChange(this.movesX[move], this.movesZ[move]);
+        return this.checker.getAccuracy();
+    }
+
+    @Benchmark
+    public double legacyWaypoints() {
+        int move = this.nextMove();
+        this.legacyChecker.onPlayerLocationChange(this.moveLocations[move]);
+        return this.legacyChecker.accuracy;
+    }
+
+    /**
+     * Former implementation of {@link MovementAccuracyChecker} for the positive X direction
+     */
+    private static class LegacyMovementAccuracyChecker {
+        private static final double MAX_ALLOW_OFFSET = 0.1;
+        private final List<Waypoint> waypoints;
+        private double accuracy;
+        private int currentSegment;
+        private int totalSteps;
+        private double totalOffset;
+
+        private LegacyMovementAccuracyChecker(List<Waypoint> waypoints) {
+            this.waypoints = waypoints;
+            this.reset();
+        }
+
+        private void onPlayerLocationChange(Location newLocation) {
+            if (this.currentSegment >= this.waypoints.size() - 1) {
+                return;
+            }
+            Location previousLocation = null;
+            if (this.currentSegment < this.waypoints.size() - 2) {
+                previousLocation = this.waypoints.get(this.currentSegment + 1).getLocation();
+                if (previousLocation.getX() <= newLocation.getX()) {
+                    this.currentSegment++;
+                } else {
+                    previousLocation = null;
+                }
+            }
+
+            Location point1 = previousLocation != null
+                ? previousLocation
+                : this.waypoints.get(this.currentSegment).getLocation();
+            Location point2 = this.waypoints.get(this.currentSegment + 1).getLocation();
+
+            double distanceToLine = calculateDistanceToLine(newLocation, point1, point2);
+
+            if (distanceToLine > MAX_ALLOW_OFFSET) {
+                this.totalOffset += distanceToLine - MAX_ALLOW_OFFSET;
+            }
+            this.totalSteps++;
+
+            double averageDeviation = this.totalOffset / this.totalSteps;
+
+            this.accuracy = 1.0 / (1.0 + averageDeviation);
+        }
+
+        private void reset() {
+            this.accuracy = 1;
+            this.currentSegment = 0;
+            this.totalSteps = 0;
+            this.totalOffset = 0;
+        }
+
+        private static double calculateDistanceToLine(Location point, Location linePoint1, Location linePoint2) {
+            Vector lineVector = linePoint2.toVector().subtract(linePoint1.toVector());
+            Vector pointVector = point.toVector().subtract(linePoint1.toVector());
+
+            lineVector.setY(0);
+            pointVector.setY(0);
+
+            double dotProduct = lineVector.dot(pointVector);
+            Vector projection = lineVector.multiply(dotProduct / lineVector.lengthSquared());
+
+            Vector perpendicular = pointVector.subtract(projection);
+
+            return perpendicular.length();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.sortix.parkourbeat.levels;
+
+import org.bukkit.util.Vector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sampling of a jump arc by {@link CubicBezierSampler} with the former Vector based interpolation.
+ * Run with {@code ./gradlew jmh}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CubicBezierSamplerBenchmark {
+    private static final double SEGMENT_LENGTH = 0.25;
+
+    /**
+     * Horizontal length of the arc
+     */
+    @Param({"2", "8"})
+    private double length;
+    /**
+     * Height of the arc, zero is a flat segment
+     */
+    @Param({"0", "1.5"})
+    private double height;
+
+    private final CubicBezierSampler sampler = new CubicBezierSampler();
+    private final ParticlePath.Builder path = new ParticlePath.Builder();
+
+    @Benchmark
+    public ParticlePath.Builder sampler() {
+        this.path.clear();
+        this.sampler.sampleArc(this.path,
+            0, 64, 0,
+            this.length, 64, 0,
+            this.height, SEGMENT_LENGTH);
+        return this.path;
+    }
+
+    @Benchmark
+    public ParticlePath.Builder legacyVectors() {
+        this.path.clear();
+        createCurvedPath(this.path, new Vector(0, 64, 0), new Vector(this.length, 64, 0), this.height);
+        return this.path;
+    }
+
+    // Former implementation of ParticleController
+
+    private static void createCurvedPath(ParticlePath.Builder path, Vector startVector, Vector endVector, double height) {
+        double length = startVector.distance(endVector);
+        int segments = calculateSegments(length, height);
+
+        Vector control1 = startVector.clone().midpoint(endVector).add(new Vector(0, height, 0));
+        Vector control2 = endVector.clone().midpoint(startVector).add(new Vector(0, height, 0));
+
+        for (int t = 0; t <= segments; t++) {
+            double ratio = t / (double) segments;
+
+            Vector interpolated = cubicBezierInterpolation(startVector, control1, control2, endVector, ratio);
+            path.add(interpolated.getX(), interpolated.getY(), interpolated.getZ());
+        }
+    }
+
+    private static int calculateSegments(double length, double height) {
+        double totalLength = Math.sqrt(length * length + height * height);
+        int segments = (int) Math.ceil(totalLength / SEGMENT_LENGTH);
+        return Math.max(segments, 1);
+    }
+
+    private static Vector cubicBezierInterpolation(Vector p0, Vector p1, Vector p2, Vector p3, double t) {
+        double u = 1 - t;
+        double tt = t * t;
+        double uu = u * u;
+        double uuu = uu * u;
+        double ttt = tt * t;
+
+        Vector p = p0.clone().multiply(uuu);
+        p.add(p1.clone().multiply(3 * uu * t));
+        p.add(p2.clone().multiply(3 * u * tt));
+        p.add(p3.clone().multiply(ttt));
+
+        return p;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.sortix.parkourbeat.levels;
+
+import org.bukkit.Location;
+import org.bukkit.util.Vector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link DirectionChecker} with the former record switching on the direction in every call.
+ * Checks of a single direction model one level, mixed directions model levels of all directions
+ * played at once, where the former switch can't be predicted. Run with {@code ./gradlew jmh}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DirectionCheckerBenchmark {
+    private static final int CHECKS = 1024;
+
+    @Param({"single", "mixed"})
+    private String directions;
+
+    private final DirectionChecker[] checkers = new DirectionChecker[CHECKS];
+    private final LegacyDirectionChecker[] legacyCheckers = new LegacyDirectionChecker[CHECKS];
+    private final Location[] behind = new Location[CHECKS];
+    private final Location[] to = new Location[CHECKS];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        DirectionChecker.Direction[] values = DirectionChecker.Direction.values();
+        for (int i = 0; i < CHECKS; i++) {
+            DirectionChecker.Direction direction = this.directions.equals("single")
+                ? DirectionChecker.Direction.POSITIVE_X
+                : values[random.nextInt(values.length)];
+            this.checkers[i] = DirectionChecker.of(direction);
+            this.legacyCheckers[i] = new LegacyDirectionChecker(direction);
+            this.behind[i] = new Location(null, random.nextDouble() * 100, 64, random.nextDouble() * 100);
+            this.to[i] = new Location(null, random.nextDouble() * 100, 64, random.nextDouble() * 100);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public int isCorrectDirection() {
+        int result = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (this.checkers[i].isCorrectDirection(this.behind[i], this.to[i])) result++;
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public int legacyIsCorrectDirection() {
+        int result = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (this.legacyCheckers[i].isCorrectDirection(this.behind[i], this.to[i])) result++;
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public double getCoordinate() {
+        double result = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            result += this.checkers[i].getCoordinate(this.to[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public double legacyGetCoordinate() {
+        double result = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            result += this.legacyCheckers[i].getCoordinate(this.to[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Former implementation of {@link DirectionChecker}
+     */
+    private record LegacyDirectionChecker(DirectionChecker.Direction direction) {
+        public boolean isCorrectDirection(Location behind, Location to) {
+            return switch (this.direction) {
+                case NEGATIVE_X -> behind.getX() >= to.getX();
+                case POSITIVE_X -> behind.getX() <= to.getX();
+                case NEGATIVE_Z -> behind.getZ() >= to.getZ();
+                case POSITIVE_Z -> behind.getZ() <= to.getZ();
+            };
+        }
+
+        public double getCoordinate(Location location) {
+            return this.getCoordinate(location.toVector());
+        }
+
+        public double getCoordinate(Vector vector) {
+            return switch (this.direction) {
+                case NEGATIVE_X, POSITIVE_X -> vector.getX();
+                case NEGATIVE_Z, POSITIVE_Z -> vector.getZ();
+            };
+        }
+    }
+}
@@ -17,6 +17,10 @@ import ru.sortix.parkourbeat.commands.argument.GameSettingsArgumentResolver;
 import ru.sortix.parkourbeat.commands.handler.DefaultInvalidUsageHandler;
 import ru.sortix.parkourbeat.constant.Messages;
 import ru.sortix.parkourbeat.data.Settings;
+import ru.sortix.parkourbeat.game.ghost.GhostsManager;
+import ru.sortix.parkourbeat.game.hud.HudManager;
+import ru.sortix.parkourbeat.game.leaderboard.LeaderboardsManager;
+import ru.sortix.parkourbeat.game.record.RunRecordsManager;
 import ru.sortix.parkourbeat.inventory.InventoriesListener;
 import ru.sortix.parkourbeat.item.ItemsManager;
 import ru.sortix.parkourbeat.levels.LevelsManager;
@@ -58,9 +62,13 @@ public class ParkourBeat extends JavaPlugin {
     private void registerAllManagers() {
         this.registerManager(ItemsManager::new);
         this.registerManager(WorldsManager::new);
+        this.registerManager(RunRecordsManager::new);
+        this.registerManager(GhostsManager::new);
+        this.registerManager(HudManager::new);
         this.registerManager(ActivityManager::new);
         this.registerManager(MusicTracksManager::new);
         this.registerManager(LevelsManager::new);
+        this.registerManager(LeaderboardsManager::new);
         this.registerManager(PlayersInputManager::new);
         this.registerManager(CustomPhysicsManager::new);
     }
@@ -86,11 +94,16 @@ public class ParkourBeat extends JavaPlugin {
                 new CommandCreate(this),
                 new CommandDelete(this),
                 new CommandEdit(this),
+                new CommandHudStats(this),
+                new CommandLevelPoolStats(this),
+                new CommandMigrateLevels(this),
+                new CommandParticlesPolicy(this),
                 new CommandPhysicsDebug(this),
                 new CommandPlay(this),
                 new CommandSpawn(this),
                 new CommandTest(this),
                 new CommandTpToWorld(this),
+                new CommandTrackPiecesStats(this),
                 new CommandUpdateTrack(this)
                 // Alphabet order
             )
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 
@@ -17,6 +18,11 @@ public class ActivityListener implements Listener {
         this.manager.updateTargetLocationActivity(event.getPlayer(), event.getTo().getWorld());
     }
 
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void on(PlayerJoinEvent event) {
+        this.manager.getPacketsAdapter().onPlayerJoin(event.getPlayer());
+    }
+
     @EventHandler
     public void on(PlayerQuitEvent event) {
         this.manager.switchActivity(event.getPlayer(), null, null);
@@ -30,13 +30,22 @@ public class ActivityManager implements PluginManager {
     private final ActivityPacketsAdapterImpl packetsAdapter;
     private final Map<Player, UserActivity> activities = new ConcurrentHashMap<>();
     private final BukkitTask movementController;
+    /**
+     * If true, movement of the runners is validated on the packet thread instead of the move events
+     */
+    @Getter
+    private final boolean packetMovementValidation;
 
     public ActivityManager(@NonNull ParkourBeat plugin) {
         this.plugin = plugin;
         this.listener = new ActivityListener(this);
         this.packetsAdapter = new ActivityPacketsAdapterImpl(this.plugin);
+        this.packetMovementValidation = this.plugin.getConfig().getBoolean("packet_movement_validation", false);
 
         this.plugin.getServer().getPluginManager().registerEvents(this.listener, this.plugin);
+        for (Player player : this.plugin.getServer().getOnlinePlayers()) {
+            this.packetsAdapter.onPlayerJoin(player);
+        }
         ProtocolLibrary.getProtocolManager().addPacketListener(this.packetsAdapter);
         this.movementController = this.plugin.getServer().getScheduler()
             .runTaskTimer(
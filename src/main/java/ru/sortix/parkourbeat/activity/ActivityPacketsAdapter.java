@@ -2,11 +2,29 @@ package ru.sortix.parkourbeat.activity;
 
 import lombok.NonNull;
 import org.bukkit.entity.Player;
-import org.bukkit.util.Vector;
+
+import javax.annotation.Nullable;
 
 public interface ActivityPacketsAdapter {
+    /**
+     * Enabled watching starts from the current location of the player
+     */
     void setWatchingPosition(@NonNull Player player, boolean watching);
 
-    @NonNull
-    Vector getPosition(@NonNull Player player);
+    /**
+     * Slot is created when the player joins and kept until the player quits,
+     * so readers may keep it instead of looking it up on every read
+     *
+     * @return Slot of the player or null if the player is offline
+     */
+    @Nullable
+    PositionSlot getPositionSlot(@NonNull Player player);
+
+    /**
+     * Adds listener of the player movement packets. Listeners are removed when the player quits,
+     * listeners of offline players are ignored
+     */
+    void addMovementListener(@NonNull Player player, @NonNull PacketMovementListener listener);
+
+    void removeMovementListener(@NonNull Player player, @NonNull PacketMovementListener listener);
 }
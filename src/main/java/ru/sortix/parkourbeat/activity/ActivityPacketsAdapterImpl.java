@@ -5,15 +5,19 @@ import com.comphenix.protocol.events.PacketAdapter;
 import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.reflect.StructureModifier;
 import lombok.NonNull;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.util.Vector;
 
+import javax.annotation.Nullable;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class ActivityPacketsAdapterImpl extends PacketAdapter implements ActivityPacketsAdapter {
-    private final Map<Player, Vector> positions = new ConcurrentHashMap<>();
+    /**
+     * Single lookup per packet, players without watching and listeners are skipped before reading the packet
+     */
+    private final Map<Player, PositionSlot> slots = new ConcurrentHashMap<>();
 
     public ActivityPacketsAdapterImpl(@NonNull Plugin plugin) {
         super(plugin,
@@ -26,35 +30,66 @@ public class ActivityPacketsAdapterImpl extends PacketAdapter implements Activit
 
     @Override
     public void setWatchingPosition(@NonNull Player player, boolean watching) {
+        PositionSlot slot = this.slots.get(player);
+        if (slot == null) return;
         if (watching) {
-            this.positions.put(player, player.getLocation().toVector()); // null is unsupported in concurrent impl
-        } else {
-            this.positions.remove(player);
+            Location location = player.getLocation();
+            slot.write(location.getX(), location.getY(), location.getZ());
         }
+        slot.setWatching(watching);
     }
 
     @Override
-    @NonNull
-    public Vector getPosition(@NonNull Player player) {
-        Vector result = this.positions.get(player);
-        if (result == null) {
-            throw new IllegalStateException("No position watching enabled for " + player.getName());
-        }
-        return result;
+    @Nullable
+    public PositionSlot getPositionSlot(@NonNull Player player) {
+        return this.slots.get(player);
+    }
+
+    @Override
+    public void addMovementListener(@NonNull Player player, @NonNull PacketMovementListener listener) {
+        PositionSlot slot = this.slots.get(player);
+        if (slot != null) slot.addListener(listener);
+    }
+
+    @Override
+    public void removeMovementListener(@NonNull Player player, @NonNull PacketMovementListener listener) {
+        PositionSlot slot = this.slots.get(player);
+        if (slot != null) slot.removeListener(listener);
+    }
+
+    protected void onPlayerJoin(@NonNull Player player) {
+        this.slots.putIfAbsent(player, new PositionSlot());
     }
 
     protected void onPlayerQuit(@NonNull Player player) {
-        this.positions.remove(player);
+        PositionSlot slot = this.slots.remove(player);
+        if (slot != null) slot.clear();
     }
 
     @Override
     public void onPacketReceiving(PacketEvent event) {
-        if (!this.positions.containsKey(event.getPlayer())) return;
+        long receivedAtNanos = System.nanoTime();
+        PositionSlot slot = this.slots.get(event.getPlayer());
+        if (slot == null) return;
+        boolean watchingPosition = slot.isWatching();
+        PacketMovementListener[] movementListeners = slot.getListeners();
+        if (!watchingPosition && movementListeners.length == 0) return;
+
         StructureModifier<Double> doubles = event.getPacket().getDoubles();
-        this.positions.put(event.getPlayer(), new Vector(
-            doubles.read(0),
-            doubles.read(1),
-            doubles.read(2)
-        ));
+        double x = doubles.read(0);
+        double y = doubles.read(1);
+        double z = doubles.read(2);
+        if (watchingPosition) {
+            slot.write(x, y, z);
+        }
+        if (movementListeners.length > 0) {
+            boolean hasLook = event.getPacketType() == PacketType.Play.Client.POSITION_LOOK;
+            StructureModifier<Float> floats = event.getPacket().getFloat();
+            float yaw = hasLook ? floats.read(0) : 0;
+            float pitch = hasLook ? floats.read(1) : 0;
+            for (PacketMovementListener movementListener : movementListeners) {
+                movementListener.onMove(x, y, z, yaw, pitch, hasLook, receivedAtNanos);
+            }
+        }
     }
 }
@@ -0,0 +1,14 @@
+package ru.sortix.parkourbeat.activity;
+
+/**
+ * Receives positions of the player directly from the incoming packets. Called on the packet thread,
+ * so implementations must not touch Bukkit API which requires the main thread
+ */
+@FunctionalInterface
+public interface PacketMovementListener {
+    /**
+     * @param hasLook         False if the packet contains position only. Yaw and pitch are undefined in this case
+     * @param receivedAtNanos {@link System#nanoTime()} when the packet was received
+     */
+    void onMove(double x, double y, double z, float yaw, float pitch, boolean hasLook, long receivedAtNanos);
+}
@@ -0,0 +1,109 @@
+package ru.sortix.parkourbeat.activity;
+
+import lombok.NonNull;
+import org.bukkit.util.Vector;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Packet state of one player: the last position received from the movement packets and the movement listeners.
+ * Position is written by the packet thread and read by any thread as a seqlock: readers don't lock or allocate
+ * and only retry under the lock if the position was changed during the read
+ */
+public final class PositionSlot {
+    static final PacketMovementListener[] NO_LISTENERS = new PacketMovementListener[0];
+
+    private final @NonNull StampedLock lock = new StampedLock();
+    private double x, y, z;
+    private volatile boolean watching = false;
+    /**
+     * Replaced on change, so the packet thread iterates it without copying
+     */
+    private volatile @NonNull PacketMovementListener[] listeners = NO_LISTENERS;
+
+    void write(double x, double y, double z) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @param target Vector to fill with the consistent coordinates
+     * @return Target vector
+     */
+    @NonNull
+    public Vector read(@NonNull Vector target) {
+        long stamp = this.lock.tryOptimisticRead();
+        double x = this.x;
+        double y = this.y;
+        double z = this.z;
+        if (!this.lock.validate(stamp)) {
+            stamp = this.lock.readLock();
+            try {
+                x = this.x;
+                y = this.y;
+                z = this.z;
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+        return target.setX(x).setY(y).setZ(z);
+    }
+
+    /**
+     * @return True if the position is updated from the packets
+     */
+    public boolean isWatching() {
+        return this.watching;
+    }
+
+    void setWatching(boolean watching) {
+        this.watching = watching;
+    }
+
+    @NonNull
+    PacketMovementListener[] getListeners() {
+        return this.listeners;
+    }
+
+    synchronized void addListener(@NonNull PacketMovementListener listener) {
+        PacketMovementListener[] listeners = this.listeners;
+        for (PacketMovementListener existing : listeners) {
+            if (existing == listener) return;
+        }
+        PacketMovementListener[] result = new PacketMovementListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, result, 0, listeners.length);
+        result[listeners.length] = listener;
+        this.listeners = result;
+    }
+
+    synchronized void removeListener(@NonNull PacketMovementListener listener) {
+        PacketMovementListener[] listeners = this.listeners;
+        int index = -1;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) return;
+        if (listeners.length == 1) {
+            this.listeners = NO_LISTENERS;
+            return;
+        }
+        PacketMovementListener[] result = new PacketMovementListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, result, 0, index);
+        System.arraycopy(listeners, index + 1, result, index, listeners.length - index - 1);
+        this.listeners = result;
+    }
+
+    synchronized void clear() {
+        this.watching = false;
+        this.listeners = NO_LISTENERS;
+    }
+}
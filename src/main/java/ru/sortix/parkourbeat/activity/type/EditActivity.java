@@ -144,7 +144,18 @@ public class EditActivity extends UserActivity {
 
         if (this.level.isEditing()) { // Prevent double saving after LevelsManager disabling
             this.level.setEditing(false);
-            this.plugin.get(LevelsManager.class).saveLevelSettingsAndBlocks(this.level);
+            long startedAtNanos = System.nanoTime();
+            int savedChunks = this.plugin.get(LevelsManager.class).saveLevelSettingsAndBlocks(this.level);
+            long savingMillis = (System.nanoTime() - startedAtNanos) / 1_000_000;
+            if (savedChunks < 0) {
+                this.player.sendMessage(Component.text("Не удалось сохранить блоки уровня", NamedTextColor.RED));
+            } else {
+                this.player.sendMessage(Component.text(
+                    "Сохранено чанков уровня: " + savedChunks + " за " + savingMillis + " мс",
+                    NamedTextColor.GRAY));
+                this.plugin.getLogger().info("Saved " + savedChunks + " chunks of level "
+                    + this.level.getUniqueId() + " in " + savingMillis + " ms");
+            }
         }
     }
 
@@ -119,6 +119,8 @@ public class PlayActivity extends UserActivity {
 
     @Override
     public void onTick() {
+        this.game.onTick();
+        this.game.getGameMoveHandler().onTick();
     }
 
     @Override
@@ -0,0 +1,36 @@
+package ru.sortix.parkourbeat.commands;
+
+import dev.rollczi.litecommands.annotations.command.Command;
+import dev.rollczi.litecommands.annotations.context.Context;
+import dev.rollczi.litecommands.annotations.execute.Execute;
+import dev.rollczi.litecommands.annotations.permission.Permission;
+import org.bukkit.command.CommandSender;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.constant.Messages;
+import ru.sortix.parkourbeat.game.hud.HudManager;
+
+import static ru.sortix.parkourbeat.constant.PermissionConstants.COMMAND_PERMISSION;
+
+@Command(
+    name = "hud-stats",
+    aliases = {"hudstats"}
+)
+public class CommandHudStats {
+
+    private final HudManager hudManager;
+
+    public CommandHudStats(ParkourBeat plugin) {
+        this.hudManager = plugin.get(HudManager.class);
+    }
+
+    @Execute
+    @Permission(COMMAND_PERMISSION + ".hud-stats")
+    public void onCommand(@Context CommandSender sender) {
+        sender.sendMessage(String.format(Messages.HUD_STATS,
+            this.hudManager.getHudsAmount(),
+            this.hudManager.getSentPackets(),
+            this.hudManager.getSkippedPackets(),
+            this.hudManager.getSavedPacketsPerSecond()
+        ));
+    }
+}
@@ -0,0 +1,42 @@
+package ru.sortix.parkourbeat.commands;
+
+import dev.rollczi.litecommands.annotations.command.Command;
+import dev.rollczi.litecommands.annotations.context.Context;
+import dev.rollczi.litecommands.annotations.execute.Execute;
+import dev.rollczi.litecommands.annotations.permission.Permission;
+import org.bukkit.command.CommandSender;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.constant.Messages;
+import ru.sortix.parkourbeat.levels.LevelWorldsPool;
+import ru.sortix.parkourbeat.levels.LevelsManager;
+
+import static ru.sortix.parkourbeat.constant.PermissionConstants.COMMAND_PERMISSION;
+
+@Command(
+    name = "level-pool-stats",
+    aliases = {"levelpoolstats"}
+)
+public class CommandLevelPoolStats {
+
+    private final LevelWorldsPool worldsPool;
+
+    public CommandLevelPoolStats(ParkourBeat plugin) {
+        this.worldsPool = plugin.get(LevelsManager.class).getWorldsPool();
+    }
+
+    @Execute
+    @Permission(COMMAND_PERMISSION + ".level-pool-stats")
+    public void onCommand(@Context CommandSender sender) {
+        sender.sendMessage(String.format(Messages.LEVEL_POOL_STATS,
+            this.worldsPool.getReadyWorldsAmount(),
+            this.worldsPool.getTargetSize(),
+            this.worldsPool.getHits(),
+            this.worldsPool.getMisses(),
+            this.worldsPool.getRefills(),
+            this.worldsPool.getFailedRefills(),
+            this.worldsPool.getMeanRefillMillis(),
+            this.worldsPool.getLastRefillNanos() / 1_000_000D,
+            this.worldsPool.getMaxRefillMspt()
+        ));
+    }
+}
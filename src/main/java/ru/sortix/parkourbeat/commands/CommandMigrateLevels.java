@@ -0,0 +1,96 @@
+package ru.sortix.parkourbeat.commands;
+
+import dev.rollczi.litecommands.annotations.argument.Arg;
+import dev.rollczi.litecommands.annotations.command.Command;
+import dev.rollczi.litecommands.annotations.context.Context;
+import dev.rollczi.litecommands.annotations.execute.Execute;
+import dev.rollczi.litecommands.annotations.permission.Permission;
+import org.bukkit.command.CommandSender;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.constant.Messages;
+import ru.sortix.parkourbeat.levels.LevelsManager;
+import ru.sortix.parkourbeat.levels.dao.slime.SlimeLevelsStorage;
+import ru.sortix.parkourbeat.levels.settings.GameSettings;
+import ru.sortix.parkourbeat.world.WorldsManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static ru.sortix.parkourbeat.constant.PermissionConstants.COMMAND_PERMISSION;
+
+@Command(
+    name = "migrate-levels",
+    aliases = {"migratelevels"}
+)
+public class CommandMigrateLevels {
+
+    private final LevelsManager levelsManager;
+    private final Executor syncExecutor;
+
+    public CommandMigrateLevels(ParkourBeat plugin) {
+        this.levelsManager = plugin.get(LevelsManager.class);
+        this.syncExecutor = plugin.get(WorldsManager.class).getSyncExecutor();
+    }
+
+    @Execute
+    @Permission(COMMAND_PERMISSION + ".migrate-levels")
+    public void onCommand(@Context CommandSender sender,
+                          @Arg("settings-console-owning") Optional<GameSettings> gameSettingsOpt
+    ) {
+        SlimeLevelsStorage slimeStorage = this.levelsManager.getLevelsSettings().getLevelSettingDAO().getSlimeStorage();
+        if (slimeStorage == null) {
+            sender.sendMessage(Messages.SLIME_STORAGE_DISABLED);
+            return;
+        }
+
+        List<GameSettings> allSettings = new ArrayList<>();
+        if (gameSettingsOpt.isPresent()) {
+            allSettings.add(gameSettingsOpt.get());
+        } else {
+            for (GameSettings settings : this.levelsManager.getAvailableLevelsSettings()) {
+                if (slimeStorage.hasLevelWorld(settings.getUniqueId())) continue;
+                allSettings.add(settings);
+            }
+            allSettings.sort(Comparator.comparingLong(GameSettings::getCreatedAtMills));
+        }
+        sender.sendMessage(String.format(Messages.LEVEL_MIGRATION_STARTED, allSettings.size()));
+
+        // One by one, so the disk is not thrashed by parallel imports
+        MigrationReport report = new MigrationReport();
+        CompletableFuture<Void> migration = CompletableFuture.completedFuture(null);
+        for (GameSettings settings : allSettings) {
+            migration = migration
+                .thenComposeAsync(unused ->
+                    this.levelsManager.migrateLevelToSlimeAsync(settings.getUniqueId()), this.syncExecutor)
+                .thenAccept(result -> report.add(sender, settings, result));
+        }
+        migration.thenAccept(unused -> sender.sendMessage(String.format(Messages.GLOBAL_LEVEL_MIGRATION_REPORT,
+            report.success, report.failed, report.anvilBytes / 1024D, report.slimeBytes / 1024D)));
+    }
+
+    private static class MigrationReport {
+        private int success = 0;
+        private int failed = 0;
+        private long anvilBytes = 0;
+        private long slimeBytes = 0;
+
+        private synchronized void add(CommandSender sender,
+                                      GameSettings settings,
+                                      SlimeLevelsStorage.MigrationResult result) {
+            if (result == null) {
+                this.failed++;
+                sender.sendMessage(String.format(Messages.FAILED_LEVEL_MIGRATION, settings.getDisplayNameLegacy()));
+                return;
+            }
+            this.success++;
+            this.anvilBytes += result.anvilBytes();
+            this.slimeBytes += result.slimeBytes();
+            sender.sendMessage(String.format(Messages.SUCCESSFUL_LEVEL_MIGRATION, settings.getDisplayNameLegacy(),
+                result.anvilBytes() / 1024D, result.slimeBytes() / 1024D, result.readNanos() / 1_000_000D));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.sortix.parkourbeat.commands;
+
+import dev.rollczi.litecommands.annotations.command.Command;
+import dev.rollczi.litecommands.annotations.context.Context;
+import dev.rollczi.litecommands.annotations.execute.Execute;
+import dev.rollczi.litecommands.annotations.permission.Permission;
+import org.bukkit.command.CommandSender;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.constant.Messages;
+import ru.sortix.parkourbeat.levels.LevelsManager;
+import ru.sortix.parkourbeat.levels.ParticleController;
+import ru.sortix.parkourbeat.levels.ParticleRenderPolicy;
+import ru.sortix.parkourbeat.levels.ParticleRenderingPipeline;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static ru.sortix.parkourbeat.constant.PermissionConstants.COMMAND_PERMISSION;
+
+@Command(
+    name = "particles-policy",
+    aliases = {"particlespolicy"}
+)
+public class CommandParticlesPolicy {
+
+    private static final int SLOWEST_LEVELS_AMOUNT = 5;
+
+    private final LevelsManager levelsManager;
+
+    public CommandParticlesPolicy(ParkourBeat plugin) {
+        this.levelsManager = plugin.get(LevelsManager.class);
+    }
+
+    @Execute
+    @Permission(COMMAND_PERMISSION + ".particles-policy")
+    public void onCommand(@Context CommandSender sender) {
+        ParticleRenderingPipeline pipeline = this.levelsManager.getParticleRenderingPipeline();
+        ParticleRenderPolicy policy = pipeline.getPolicy();
+        sender.sendMessage(String.format(Messages.PARTICLES_POLICY_OPTIONS,
+            policy.getBasePeriodTicks(),
+            policy.getMaxPeriodTicks(),
+            policy.getTargetMspt(),
+            policy.getMsptPerExtraTick(),
+            policy.getFarSectionsStride(),
+            policy.getMaxParticlesPerPlayerPerSecond()
+        ));
+        sender.sendMessage(String.format(Messages.PARTICLES_POLICY_STATE,
+            policy.getLastMspt(),
+            policy.getCurrentPeriodTicks(),
+            policy.getParticlesPerPassLimit()
+        ));
+        sender.sendMessage(String.format(Messages.PARTICLES_POLICY_STATS,
+            policy.getRenderPasses(),
+            pipeline.getSkippedPasses(),
+            policy.getSentParticles(),
+            policy.getCappedViewers()
+        ));
+        sender.sendMessage(String.format(Messages.PARTICLES_POLICY_CULLING,
+            policy.isViewConeCulling() ? "включено" : "выключено",
+            policy.getViewConeAngle(),
+            policy.getCulledParticles(),
+            policy.getCullingRate() * 100
+        ));
+
+        List<ParticleController> controllers = new ArrayList<>(pipeline.getControllers());
+        int viewers = 0;
+        long particles = 0;
+        long memoryBytes = 0;
+        for (ParticleController controller : controllers) {
+            viewers += controller.getViewersAmount();
+            particles += controller.getParticlesAmount();
+            memoryBytes += controller.getMemoryFootprintBytes();
+        }
+        sender.sendMessage(String.format(Messages.PARTICLES_POLICY_CONTROLLERS,
+            controllers.size(), policy.getWorkerThreads(), viewers, particles, memoryBytes / 1024.0));
+
+        controllers.sort(Comparator.comparingLong(ParticleController::getLastRenderTimeNanos).reversed());
+        for (ParticleController controller : controllers.subList(0, Math.min(SLOWEST_LEVELS_AMOUNT, controllers.size()))) {
+            sender.sendMessage(String.format(Messages.PARTICLES_POLICY_SLOWEST_LEVEL,
+                controller.getWorld().getName(),
+                controller.getLastRenderTimeNanos() / 1_000_000.0,
+                controller.getViewersAmount()
+            ));
+        }
+    }
+}
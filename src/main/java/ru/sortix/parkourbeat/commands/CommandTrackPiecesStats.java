@@ -0,0 +1,43 @@
+package ru.sortix.parkourbeat.commands;
+
+import dev.rollczi.litecommands.annotations.command.Command;
+import dev.rollczi.litecommands.annotations.context.Context;
+import dev.rollczi.litecommands.annotations.execute.Execute;
+import dev.rollczi.litecommands.annotations.permission.Permission;
+import org.bukkit.command.CommandSender;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.constant.Messages;
+import ru.sortix.parkourbeat.player.music.MusicTracksManager;
+import ru.sortix.parkourbeat.player.music.TrackPiecesPrediction;
+
+import static ru.sortix.parkourbeat.constant.PermissionConstants.COMMAND_PERMISSION;
+
+@Command(
+    name = "track-pieces-stats",
+    aliases = {"trackpiecesstats"}
+)
+public class CommandTrackPiecesStats {
+
+    private final MusicTracksManager musicTracksManager;
+
+    public CommandTrackPiecesStats(ParkourBeat plugin) {
+        this.musicTracksManager = plugin.get(MusicTracksManager.class);
+    }
+
+    @Execute
+    @Permission(COMMAND_PERMISSION + ".track-pieces-stats")
+    public void onCommand(@Context CommandSender sender) {
+        TrackPiecesPrediction prediction = this.musicTracksManager.getPiecesPrediction();
+        if (prediction == null) {
+            sender.sendMessage(Messages.TRACK_PIECES_PREDICTION_DISABLED);
+            return;
+        }
+        sender.sendMessage(String.format(Messages.TRACK_PIECES_PREDICTION_STATS,
+            prediction.getMeasuredPieces().sum(),
+            prediction.getLatePieces().sum(),
+            prediction.getMeanErrorMillis(),
+            prediction.getMeanAbsErrorMillis(),
+            prediction.getLastErrorNanos().get() / 1_000_000.0
+        ));
+    }
+}
@@ -18,9 +18,42 @@ public class Messages {
     public static final String SUCCESSFUL_LEVEL_DATA_CONVERSION = "Конвертация данных уровня %s завершена успешно";
     public static final String FAILED_LEVEL_DATA_CONVERSION = "Конвертация данных уровня %s завершена неудачно";
 
+    public static final String SLIME_STORAGE_DISABLED =
+        "Хранение уровней в формате slime выключено или плагин SlimeWorldManager не найден";
+    public static final String LEVEL_MIGRATION_STARTED = "Перенос %d уровней в формат slime начат";
+    public static final String SUCCESSFUL_LEVEL_MIGRATION =
+        "Уровень %s перенесён в формат slime: %.1f КБ -> %.1f КБ, чтение %.1f мс";
+    public static final String FAILED_LEVEL_MIGRATION = "Не удалось перенести уровень %s в формат slime";
+    public static final String GLOBAL_LEVEL_MIGRATION_REPORT =
+        "Перенос в формат slime завершён: успешно %d, с ошибкой %d. Размер миров: %.1f КБ -> %.1f КБ";
+
     public static final String SUCCESSFUL_LEVEL_DELETION = "Вы успешно удалили уровень %s";
     public static final String LEVEL_DELETION_ALREADY_DELETED = "Уровень %s был удален";
     public static final String FAILED_LEVEL_DELETION = "Не удалось удалить уровень %s";
     public static final String PHYSICS_DEBUG_SWITCHED = "Отладка движка физики %s";
 
+    public static final String PARTICLES_POLICY_OPTIONS =
+        "Частицы: период %d-%d тиков, целевой MSPT %.1f (+1 тик за %.1f мс), "
+            + "прореживание дальних секций x%d, лимит %d частиц/с на игрока";
+    public static final String PARTICLES_POLICY_STATE =
+        "Текущее состояние: MSPT %.2f, период %d тиков, лимит %d частиц за проход";
+    public static final String PARTICLES_POLICY_STATS =
+        "Проходов: %d (пропущено %d), отправлено частиц: %d, упёрлись в лимит: %d";
+    public static final String PARTICLES_POLICY_CONTROLLERS =
+        "Активных уровней: %d, потоков отрисовки: %d, зрителей: %d, точек пути: %d (%.1f КБ)";
+    public static final String PARTICLES_POLICY_CULLING =
+        "Отсечение по углу обзора: %s (угол %.0f°), отброшено частиц: %d (%.1f%%)";
+    public static final String PARTICLES_POLICY_SLOWEST_LEVEL = " - %s: %.3f мс, зрителей: %d";
+
+    public static final String TRACK_PIECES_PREDICTION_DISABLED = "Предсказание отправки фрагментов трека выключено";
+    public static final String TRACK_PIECES_PREDICTION_STATS =
+        "Фрагменты трека: измерено %d, опоздали %d, средняя ошибка %.1f мс (по модулю %.1f мс), последняя %.1f мс";
+
+    public static final String LEVEL_POOL_STATS =
+        "Пул миров уровней: готово %d из %d, выдано %d, промахов %d, создано %d (ошибок %d), "
+            + "создание %.1f мс (последнее %.1f мс), пополнение при MSPT до %.1f";
+
+    public static final String HUD_STATS =
+        "Интерфейс забегов: активных %d, отправлено пакетов: %d, пропущено без изменений: %d (%d/с)";
+
 }
@@ -1,5 +1,6 @@
 package ru.sortix.parkourbeat.game;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -7,18 +8,26 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
+import org.bukkit.Location;
 import org.bukkit.Sound;
-import org.bukkit.boss.BarColor;
-import org.bukkit.boss.BarStyle;
-import org.bukkit.boss.BossBar;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.Vector;
 import ru.sortix.parkourbeat.ParkourBeat;
 import ru.sortix.parkourbeat.activity.ActivityManager;
 import ru.sortix.parkourbeat.activity.ActivityPacketsAdapter;
+import ru.sortix.parkourbeat.activity.PositionSlot;
+import ru.sortix.parkourbeat.game.ghost.GhostsManager;
+import ru.sortix.parkourbeat.game.hud.HudManager;
+import ru.sortix.parkourbeat.game.leaderboard.LeaderboardEntry;
+import ru.sortix.parkourbeat.game.leaderboard.LeaderboardsManager;
 import ru.sortix.parkourbeat.game.movement.GameMoveHandler;
+import ru.sortix.parkourbeat.game.movement.RunTimer;
+import ru.sortix.parkourbeat.game.record.RunRecord;
+import ru.sortix.parkourbeat.game.record.RunRecorder;
+import ru.sortix.parkourbeat.game.record.RunRecordsManager;
+import ru.sortix.parkourbeat.levels.DirectionChecker;
 import ru.sortix.parkourbeat.levels.Level;
 import ru.sortix.parkourbeat.levels.LevelsManager;
 import ru.sortix.parkourbeat.levels.ParticleController;
@@ -39,28 +48,57 @@ public class Game {
     private final @NonNull LevelsManager levelsManager;
     private final @NonNull MusicTracksManager musicTracksManager;
     private final @NonNull ActivityPacketsAdapter packetsAdapter;
+    private final @NonNull GhostsManager ghostsManager;
+    private final @NonNull HudManager hudManager;
+    private final @NonNull LeaderboardsManager leaderboardsManager;
     private final @NonNull Player player;
     private final @NonNull Level level;
     private final @NonNull GameMoveHandler gameMoveHandler;
     private final @NonNull MusicMode musicMode;
+    private final @NonNull RunRecorder runRecorder;
+    private final @NonNull RunTimer runTimer;
+    private final @Nullable TrackPiecesDispatcher trackPiecesDispatcher;
     @Setter
     private @NonNull State currentState = State.PREPARING;
-    private BukkitTask bossBarTask;
-    private BossBar bossBar;
-    private volatile int lastTrackPieceNumber = 0;
+    /**
+     * Used if the start line crossing was not seen in the movement packets
+     */
+    private long runStartFallbackNanos;
+    /**
+     * Position from the movement packets while running, so progress is read without the main thread lag
+     */
+    @Getter(AccessLevel.NONE)
+    private final @NonNull PositionSlot positionSlot;
+    @Getter(AccessLevel.NONE)
+    private final @NonNull Vector progressPosition = new Vector();
+    @Getter(AccessLevel.NONE)
+    private final @NonNull Location progressLocation = new Location(null, 0, 0, 0);
 
     private Game(@NonNull ParkourBeat plugin, @NonNull Player player, @NonNull Level level) {
         this.levelsManager = plugin.get(LevelsManager.class);
         this.musicTracksManager = plugin.get(MusicTracksManager.class);
         this.packetsAdapter = plugin.get(ActivityManager.class).getPacketsAdapter();
+        this.ghostsManager = plugin.get(GhostsManager.class);
+        this.hudManager = plugin.get(HudManager.class);
+        this.leaderboardsManager = plugin.get(LeaderboardsManager.class);
         this.player = player;
         this.level = level;
+        PositionSlot positionSlot = this.packetsAdapter.getPositionSlot(player);
+        if (positionSlot == null) {
+            throw new IllegalArgumentException("Player " + player.getName() + " is offline");
+        }
+        this.positionSlot = positionSlot;
         this.gameMoveHandler = new GameMoveHandler(this);
+        this.runRecorder = new RunRecorder(plugin.get(RunRecordsManager.class), level.getUniqueId(), player);
+        this.runTimer = new RunTimer(level.getLevelSettings());
         this.musicMode = level.getLevelSettings().getGameSettings().getMusicTrack() == null
             ? MusicMode.DISABLED
             : (level.getLevelSettings().getGameSettings().isUseTrackPieces()
             ? MusicMode.PIECES
             : MusicMode.FULL_TRACK);
+        this.trackPiecesDispatcher = this.musicMode == MusicMode.PIECES
+            ? new TrackPiecesDispatcher(this.musicTracksManager, player, level.getLevelSettings())
+            : null;
         this.prepareGame(plugin);
     }
 
@@ -75,6 +113,14 @@ public class Game {
                 // TODO Отгружать мир
                 return;
             }
+            if (!player.isOnline()) {
+                // Player quit while the level was loading
+                if (level.getWorld().getPlayers().isEmpty()) {
+                    levelsManager.unloadLevelAsync(levelId, false);
+                }
+                result.complete(null);
+                return;
+            }
             try {
                 // TODO Проверять валидность точки спауна при загрузке мира и при установке новой точки
                 // TODO Отключить данную проверку для уровней, прошедших модерацию
@@ -113,6 +159,8 @@ public class Game {
                 settings.getWorldSettings().getWaypoints());
         }
 
+        this.ghostsManager.preloadFastestRun(this.level.getUniqueId());
+
         this.player.setGameMode(GameMode.ADVENTURE);
 
         this.setCurrentState(State.READY);
@@ -148,6 +196,7 @@ public class Game {
         }
 
         this.setCurrentState(State.RUNNING);
+        this.runStartFallbackNanos = System.nanoTime();
 
         if (!this.player.isSprinting() || this.player.isSneaking()) {
             this.failLevel("§cЗажмите бег!", null);
@@ -159,13 +208,14 @@ public class Game {
             return;
         }
 
-        this.level.getLevelSettings().getParticleController().startSpawnParticles(this.player);
+        this.level.getLevelSettings().getParticleController().startSpawnParticles(this.player, true);
+        this.packetsAdapter.setWatchingPosition(this.player, true);
 
-        if (this.musicMode == MusicMode.PIECES) {
-            this.packetsAdapter.setWatchingPosition(this.player, true);
+        if (this.trackPiecesDispatcher != null) {
             this.musicTracksManager.getPlatform().disableRepeatMode(this.player);
-            this.musicTracksManager.setTrackPiecesSendingEnabled(this, true);
-            this.tryToSendTrackPiece();
+            Location location = this.player.getLocation();
+            this.trackPiecesDispatcher.start(location.getX(), location.getZ());
+            this.packetsAdapter.addMovementListener(this.player, this.trackPiecesDispatcher);
         } else if (this.musicMode == MusicMode.FULL_TRACK) {
             this.musicTracksManager.getPlatform().disableRepeatMode(this.player);
             this.musicTracksManager.getPlatform().startPlayingTrackFull(this.player);
@@ -176,19 +226,37 @@ public class Game {
             this.player.hidePlayer(plugin, onlinePlayer);
         }
 
-        createBossBar();
+        this.gameMoveHandler.onGameStarted(this.player);
+        this.runRecorder.start(Bukkit.getCurrentTick());
+        this.ghostsManager.startPlayback(this.player, this.level.getUniqueId());
+        this.hudManager.show(this);
     }
 
-    public void tryToSendTrackPiece() {
-        double distance = this.getPassedDistance(true);
-        int trackSectionNumber = (int) Math.floor(distance / BLOCKS_PER_SECOND) + 1;
-        if (trackSectionNumber <= this.lastTrackPieceNumber) return;
-        this.lastTrackPieceNumber = trackSectionNumber;
-        this.sendTrackPiece(trackSectionNumber);
+    /**
+     * Must be called from the main thread every tick
+     */
+    public void onTick() {
+        if (this.currentState == State.RUNNING) {
+            this.runRecorder.sample(Bukkit.getCurrentTick());
+        }
     }
 
-    private void sendTrackPiece(int trackSectionNumber) {
-        this.musicTracksManager.getPlatform().startPlayingTrackPiece(this.player, trackSectionNumber);
+    /**
+     * @return {@link System#nanoTime()} of crossing the start line by the current run
+     */
+    public long getRunStartedAtNanos() {
+        long startNanos = this.runTimer.getStartNanos();
+        return startNanos == RunTimer.NOT_CROSSED ? this.runStartFallbackNanos : startNanos;
+    }
+
+    /**
+     * Sub-tick accurate if the line crossings were seen in the movement packets
+     *
+     * @return Time from crossing the start line to crossing the finish line, or to now if the run is not finished
+     */
+    public long getRunDurationNanos() {
+        long finishNanos = this.runTimer.getFinishNanos();
+        return (finishNanos == RunTimer.NOT_CROSSED ? System.nanoTime() : finishNanos) - this.getRunStartedAtNanos();
     }
 
     public void failLevel(@Nullable String reasonFirstLine, @Nullable String reasonSecondLine) {
@@ -196,8 +264,22 @@ public class Game {
         TeleportUtils.teleportAsync(this.getPlugin(), this.player, this.level.getSpawn());
     }
 
+    /**
+     * Results of the test runs in the editor are not submitted, because the track may differ from the published one
+     */
     public void completeLevel() {
-        this.resetLevelGame("§aВы прошли уровень", null, true);
+        LeaderboardEntry result = new LeaderboardEntry(
+            this.player.getUniqueId(),
+            this.getRunDurationNanos() / 1_000_000,
+            (float) this.gameMoveHandler.getAccuracy(),
+            System.currentTimeMillis()
+        );
+        boolean personalBest = !this.level.isEditing()
+            && this.leaderboardsManager.submit(this.level.getUniqueId(), result);
+        this.resetLevelGame("§aВы прошли уровень",
+            (personalBest ? "§6Новый рекорд! " : "§e")
+                + result.getFormattedDuration() + ", точность " + result.getFormattedAccuracy(),
+            true);
         TeleportUtils.teleportAsync(this.getPlugin(), this.player, this.level.getSpawn());
     }
 
@@ -205,6 +287,8 @@ public class Game {
         boolean switchState = this.currentState == State.RUNNING;
         this.resetRunningLevelGame(reasonFirstLine, reasonSecondLine, levelComplete);
         this.forceStopLevelGame();
+        this.runTimer.reset();
+        this.packetsAdapter.addMovementListener(this.player, this.runTimer);
         if (switchState) this.setCurrentState(State.READY);
     }
 
@@ -224,6 +308,10 @@ public class Game {
             this.player.playSound(this.player.getLocation(), Sound.ENTITY_SILVERFISH_DEATH, 1, 1);
         }
 
+        boolean ranked = !this.level.isEditing();
+        RunRecord runRecord = this.runRecorder.finish(levelComplete, ranked);
+        if (runRecord != null && ranked) this.ghostsManager.onRunFinished(runRecord);
+        this.gameMoveHandler.onGameStopped(this.player);
         this.gameMoveHandler.getAccuracyChecker().reset();
     }
 
@@ -231,23 +319,26 @@ public class Game {
         this.player.setHealth(20);
         this.player.setGameMode(GameMode.ADVENTURE);
 
-        if (this.musicMode == MusicMode.PIECES) {
-            this.musicTracksManager.setTrackPiecesSendingEnabled(this, false);
-            this.packetsAdapter.setWatchingPosition(this.player, false);
-            this.musicTracksManager.getPlatform().stopPlayingTrackPiece(this.player, this.lastTrackPieceNumber);
-            this.lastTrackPieceNumber = 0;
+        if (this.trackPiecesDispatcher != null) {
+            this.packetsAdapter.removeMovementListener(this.player, this.trackPiecesDispatcher);
+            int lastPieceNumber = this.trackPiecesDispatcher.stop();
+            this.musicTracksManager.getPlatform().stopPlayingTrackPiece(this.player, lastPieceNumber);
         } else if (this.musicMode == MusicMode.FULL_TRACK) {
             this.musicTracksManager.getPlatform().stopPlayingTrackFull(this.player);
         }
 
         this.level.getLevelSettings().getParticleController().stopSpawnParticlesForPlayer(this.player);
+        this.gameMoveHandler.onGameStopped(this.player);
+        this.runRecorder.discard();
+        this.ghostsManager.stopPlayback(this.player);
+        this.hudManager.hide(this.player);
+        this.packetsAdapter.removeMovementListener(this.player, this.runTimer);
+        this.packetsAdapter.setWatchingPosition(this.player, false);
 
         Plugin plugin = this.getPlugin();
         for (Player onlinePlayer : plugin.getServer().getOnlinePlayers()) {
             this.player.showPlayer(plugin, onlinePlayer);
         }
-
-        removeBossBar();
     }
 
     public enum State {
@@ -256,61 +347,26 @@ public class Game {
         RUNNING,
     }
 
-    private void createBossBar() {
-        removeBossBar();
-
-        bossBar = Bukkit.createBossBar("0%", BarColor.YELLOW, BarStyle.SOLID);
-        bossBar.setProgress(0.0);
-        bossBar.addPlayer(player);
-
-        bossBarTask = Bukkit.getScheduler().runTaskTimer(getPlugin(), this::updateBossBar, 0L, 1L);
-    }
-
-    private void removeBossBar() {
-        if (bossBarTask != null && !bossBarTask.isCancelled()) {
-            bossBarTask.cancel();
-            bossBarTask = null;
-        }
-
-        if (bossBar != null) {
-            bossBar.removeAll();
-            bossBar = null;
-        }
-    }
-
-    private void updateBossBar() {
-        double progress = this.getPassedProgress();
-        this.bossBar.setTitle(String.format("%d%%", Math.round(progress * 100)));
-        this.bossBar.setProgress(progress);
-    }
-
     /**
      * @return Value between 0.0 and 1.0
      */
-    private double getPassedProgress() {
-        double passedProgress = this.getPassedDistance(false) / this.level.getLevelSettings().getTotalLevelDistance();
+    public double getPassedProgress() {
+        double passedProgress = this.getPassedDistance() / this.level.getLevelSettings().getTotalLevelDistance();
         if (passedProgress >= 0 && passedProgress <= 1) return passedProgress;
         throw new IllegalArgumentException("Wrong passed progress: " + passedProgress);
     }
 
     /**
-     * @param realtime If true position can be accessed asynchronously at any time
      * @return Distance in blocks from 0.0 to level distance
      */
-    private double getPassedDistance(boolean realtime) {
+    private double getPassedDistance() {
         LevelSettings levelSettings = this.level.getLevelSettings();
 
-        double playerPos;
-        if (realtime) {
-            playerPos = levelSettings.getDirectionChecker().getCoordinate(this.packetsAdapter.getPosition(this.player));
-        } else {
-            playerPos = levelSettings.getDirectionChecker().getCoordinate(this.player.getLocation());
-        }
-        double startPos = levelSettings.getStartPosition();
-
-        double passedDistance = playerPos < startPos
-            ? startPos - playerPos
-            : playerPos - startPos;
+        DirectionChecker directionChecker = levelSettings.getDirectionChecker();
+        double playerPos = this.positionSlot.isWatching()
+            ? directionChecker.getCoordinate(this.positionSlot.read(this.progressPosition))
+            : directionChecker.getCoordinate(this.player.getLocation(this.progressLocation));
+        double passedDistance = Math.abs(playerPos - levelSettings.getStartPosition());
 
         return Math.max(0, Math.min(levelSettings.getTotalLevelDistance(), passedDistance));
     }
@@ -0,0 +1,214 @@
+package ru.sortix.parkourbeat.game;
+
+import lombok.NonNull;
+import org.bukkit.entity.Player;
+import ru.sortix.parkourbeat.activity.PacketMovementListener;
+import ru.sortix.parkourbeat.levels.DirectionChecker;
+import ru.sortix.parkourbeat.levels.settings.LevelSettings;
+import ru.sortix.parkourbeat.player.music.MusicTracksManager;
+import ru.sortix.parkourbeat.player.music.TrackPiecesPrediction;
+import ru.sortix.parkourbeat.player.music.platform.MusicPlatform;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the track pieces right from the movement packets. Each packet is compared
+ * with the precomputed coordinate of the next piece, so nothing is done until the player
+ * approaches it and nothing at all while the player doesn't move.
+ * <p>
+ * If prediction is enabled, the moment of crossing is estimated from the velocity of the recent packets
+ * and the piece is sent one ping earlier: the crossing is seen by the server half a ping late
+ * and the piece reaches the client after another half
+ */
+final class TrackPiecesDispatcher implements PacketMovementListener {
+    /**
+     * Packets older than this don't describe the current velocity
+     */
+    private static final long MAX_VELOCITY_SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final double VELOCITY_SMOOTHING = 0.5;
+
+    private final @NonNull MusicTracksManager musicTracksManager;
+    private final @NonNull MusicPlatform platform;
+    private final @NonNull Player player;
+    private final @NonNull DirectionChecker directionChecker;
+    private final double startProgress;
+    private final double finishProgress;
+    private final int lastPieceOfLevel;
+
+    // Guarded by this
+    private boolean active = false;
+    private int lastPieceNumber = 0;
+    private double nextPieceProgress = Double.POSITIVE_INFINITY;
+    private double lastProgress;
+    private long lastNanos;
+    private boolean hasLastSample = false;
+    /**
+     * Progress per nanosecond
+     */
+    private double velocity = 0;
+    private ScheduledFuture<?> scheduledPiece = null;
+    /**
+     * Crossing of the boundary of the early sent piece is awaited to measure the prediction error
+     */
+    private boolean awaitingCrossing = false;
+    private double awaitedBoundaryProgress;
+    private long sentAtNanos;
+    private long sentWithPingNanos;
+
+    TrackPiecesDispatcher(@NonNull MusicTracksManager musicTracksManager, @NonNull Player player,
+                          @NonNull LevelSettings settings) {
+        this.musicTracksManager = musicTracksManager;
+        this.platform = musicTracksManager.getPlatform();
+        this.player = player;
+        this.directionChecker = settings.getDirectionChecker();
+        this.startProgress = this.directionChecker.toProgress(settings.getStartPosition());
+        this.finishProgress = this.directionChecker.toProgress(settings.getFinishPosition());
+        this.lastPieceOfLevel = this.getPieceNumber(this.finishProgress);
+    }
+
+    private int getPieceNumber(double progress) {
+        double distance = Math.max(0, Math.min(this.finishProgress, progress) - this.startProgress);
+        return (int) Math.floor(distance / Game.BLOCKS_PER_SECOND) + 1;
+    }
+
+    /**
+     * Sends the piece of the current position
+     */
+    synchronized void start(double x, double z) {
+        this.active = true;
+        this.lastPieceNumber = 0;
+        this.hasLastSample = false;
+        this.velocity = 0;
+        this.awaitingCrossing = false;
+        this.sendPiece(this.getPieceNumber(this.directionChecker.getProgress(x, z)));
+    }
+
+    /**
+     * After returning from this method no more pieces are sent
+     *
+     * @return Number of the last sent piece or 0 if nothing was sent
+     */
+    synchronized int stop() {
+        this.active = false;
+        this.nextPieceProgress = Double.POSITIVE_INFINITY;
+        this.cancelScheduledPiece();
+        this.awaitingCrossing = false;
+        int lastPieceNumber = this.lastPieceNumber;
+        this.lastPieceNumber = 0;
+        return lastPieceNumber;
+    }
+
+    @Override
+    public synchronized void onMove(double x, double y, double z, float yaw, float pitch, boolean hasLook,
+                                    long receivedAtNanos) {
+        if (!this.active) return;
+        double progress = this.directionChecker.getProgress(x, z);
+        double previousProgress = this.lastProgress;
+        long previousNanos = this.lastNanos;
+        boolean hasPreviousSample = this.hasLastSample;
+        this.lastProgress = progress;
+        this.lastNanos = receivedAtNanos;
+        this.hasLastSample = true;
+
+        TrackPiecesPrediction prediction = this.musicTracksManager.getPiecesPrediction();
+        if (prediction == null) {
+            // Reactive mode, a single comparison until the boundary is crossed
+            if (progress < this.nextPieceProgress) return;
+            int pieceNumber = this.getPieceNumber(progress);
+            if (pieceNumber > this.lastPieceNumber) this.sendPiece(pieceNumber);
+            return;
+        }
+
+        if (hasPreviousSample) {
+            long elapsedNanos = receivedAtNanos - previousNanos;
+            if (elapsedNanos > 0 && elapsedNanos <= MAX_VELOCITY_SAMPLE_NANOS) {
+                double velocity = (progress - previousProgress) / elapsedNanos;
+                this.velocity += (velocity - this.velocity) * VELOCITY_SMOOTHING;
+            }
+            if (this.awaitingCrossing) {
+                long crossingNanos = this.getCrossingNanos(
+                    this.awaitedBoundaryProgress, previousProgress, previousNanos, progress, receivedAtNanos);
+                if (crossingNanos != Long.MIN_VALUE) {
+                    this.awaitingCrossing = false;
+                    prediction.recordError(this.sentAtNanos + this.sentWithPingNanos - crossingNanos);
+                }
+            }
+        }
+
+        int pieceNumber = this.getPieceNumber(progress);
+        if (pieceNumber > this.lastPieceNumber) {
+            // Crossed before the predicted moment
+            long crossingNanos = hasPreviousSample
+                ? this.getCrossingNanos(this.nextPieceProgress, previousProgress, previousNanos, progress, receivedAtNanos)
+                : Long.MIN_VALUE;
+            this.cancelScheduledPiece();
+            this.sendPiece(pieceNumber);
+            this.awaitingCrossing = false;
+            if (crossingNanos != Long.MIN_VALUE) {
+                prediction.recordError(receivedAtNanos + this.getPingNanos() - crossingNanos);
+            }
+            return;
+        }
+
+        if (this.nextPieceProgress == Double.POSITIVE_INFINITY || this.velocity <= 0) return;
+        long pingNanos = this.getPingNanos();
+        double etaNanos = (this.nextPieceProgress - progress) / this.velocity;
+        long delayNanos = Math.round(etaNanos) - Math.min(pingNanos, prediction.getMaxLeadNanos());
+        // Later packets will refine the estimation
+        if (delayNanos > prediction.getHorizonNanos()) return;
+
+        this.cancelScheduledPiece();
+        int predictedPieceNumber = this.lastPieceNumber + 1;
+        if (delayNanos <= 0) {
+            this.sendPredictedPiece(predictedPieceNumber, receivedAtNanos, pingNanos);
+            return;
+        }
+        this.scheduledPiece = prediction.getScheduler().schedule(
+            () -> this.onScheduledPiece(predictedPieceNumber),
+            delayNanos - (System.nanoTime() - receivedAtNanos), TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void onScheduledPiece(int pieceNumber) {
+        if (!this.active || pieceNumber != this.lastPieceNumber + 1) return;
+        this.scheduledPiece = null;
+        this.sendPredictedPiece(pieceNumber, System.nanoTime(), this.getPingNanos());
+    }
+
+    private void sendPredictedPiece(int pieceNumber, long nowNanos, long pingNanos) {
+        this.awaitedBoundaryProgress = this.nextPieceProgress;
+        this.sendPiece(pieceNumber);
+        this.awaitingCrossing = true;
+        this.sentAtNanos = nowNanos;
+        this.sentWithPingNanos = pingNanos;
+    }
+
+    private void sendPiece(int pieceNumber) {
+        this.lastPieceNumber = pieceNumber;
+        this.nextPieceProgress = pieceNumber >= this.lastPieceOfLevel
+            ? Double.POSITIVE_INFINITY
+            : this.startProgress + pieceNumber * Game.BLOCKS_PER_SECOND;
+        this.platform.startPlayingTrackPiece(this.player, pieceNumber);
+    }
+
+    private void cancelScheduledPiece() {
+        if (this.scheduledPiece == null) return;
+        this.scheduledPiece.cancel(false);
+        this.scheduledPiece = null;
+    }
+
+    /**
+     * @return Moment of crossing interpolated between two packets or {@link Long#MIN_VALUE} if not crossed
+     */
+    private long getCrossingNanos(double lineProgress,
+                                  double fromProgress, long fromNanos,
+                                  double toProgress, long toNanos) {
+        if (fromProgress >= lineProgress || toProgress < lineProgress) return Long.MIN_VALUE;
+        double ratio = (lineProgress - fromProgress) / (toProgress - fromProgress);
+        return fromNanos + Math.round((toNanos - fromNanos) * ratio);
+    }
+
+    private long getPingNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, this.player.spigot().getPing()));
+    }
+}
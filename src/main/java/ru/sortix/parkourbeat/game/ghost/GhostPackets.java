@@ -0,0 +1,84 @@
+package ru.sortix.parkourbeat.game.ghost;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.EnumWrappers;
+import com.comphenix.protocol.wrappers.PlayerInfoData;
+import com.comphenix.protocol.wrappers.WrappedChatComponent;
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+
+/**
+ * Packets of the fake player entity. Nothing is created on the server side
+ */
+@UtilityClass
+class GhostPackets {
+    private final ProtocolManager PROTOCOL_MANAGER = ProtocolLibrary.getProtocolManager();
+
+    void sendPlayerInfo(@NonNull Player viewer, @NonNull WrappedGameProfile profile, boolean add) {
+        PacketContainer packet = PROTOCOL_MANAGER.createPacket(PacketType.Play.Server.PLAYER_INFO);
+        packet.getPlayerInfoAction().write(0, add
+            ? EnumWrappers.PlayerInfoAction.ADD_PLAYER
+            : EnumWrappers.PlayerInfoAction.REMOVE_PLAYER);
+        packet.getPlayerInfoDataLists().write(0, Collections.singletonList(new PlayerInfoData(
+            profile, 0, EnumWrappers.NativeGameMode.ADVENTURE, WrappedChatComponent.fromText(profile.getName()))));
+        PROTOCOL_MANAGER.sendServerPacket(viewer, packet);
+    }
+
+    void sendSpawn(@NonNull Player viewer, int entityId, @NonNull WrappedGameProfile profile,
+                   double x, double y, double z, float yaw, float pitch
+    ) {
+        PacketContainer packet = PROTOCOL_MANAGER.createPacket(PacketType.Play.Server.NAMED_ENTITY_SPAWN);
+        packet.getIntegers().write(0, entityId);
+        packet.getUUIDs().write(0, profile.getUUID());
+        packet.getDoubles()
+            .write(0, x)
+            .write(1, y)
+            .write(2, z);
+        packet.getBytes()
+            .write(0, toAngle(yaw))
+            .write(1, toAngle(pitch));
+        PROTOCOL_MANAGER.sendServerPacket(viewer, packet);
+        sendHeadRotation(viewer, entityId, yaw);
+    }
+
+    void sendTeleport(@NonNull Player viewer, int entityId,
+                      double x, double y, double z, float yaw, float pitch, boolean onGround
+    ) {
+        PacketContainer packet = PROTOCOL_MANAGER.createPacket(PacketType.Play.Server.ENTITY_TELEPORT);
+        packet.getIntegers().write(0, entityId);
+        packet.getDoubles()
+            .write(0, x)
+            .write(1, y)
+            .write(2, z);
+        packet.getBytes()
+            .write(0, toAngle(yaw))
+            .write(1, toAngle(pitch));
+        packet.getBooleans().write(0, onGround);
+        PROTOCOL_MANAGER.sendServerPacket(viewer, packet);
+        sendHeadRotation(viewer, entityId, yaw);
+    }
+
+    private void sendHeadRotation(@NonNull Player viewer, int entityId, float yaw) {
+        PacketContainer packet = PROTOCOL_MANAGER.createPacket(PacketType.Play.Server.ENTITY_HEAD_ROTATION);
+        packet.getIntegers().write(0, entityId);
+        packet.getBytes().write(0, toAngle(yaw));
+        PROTOCOL_MANAGER.sendServerPacket(viewer, packet);
+    }
+
+    void sendDestroy(@NonNull Player viewer, int entityId) {
+        PacketContainer packet = PROTOCOL_MANAGER.createPacket(PacketType.Play.Server.ENTITY_DESTROY);
+        packet.getIntegerArrays().write(0, new int[]{entityId});
+        PROTOCOL_MANAGER.sendServerPacket(viewer, packet);
+    }
+
+    private byte toAngle(float degrees) {
+        return (byte) (int) (degrees * 256f / 360f);
+    }
+}
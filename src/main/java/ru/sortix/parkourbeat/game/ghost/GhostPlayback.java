@@ -0,0 +1,108 @@
+package ru.sortix.parkourbeat.game.ghost;
+
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.entity.Player;
+import ru.sortix.parkourbeat.game.record.RunRecord;
+import ru.sortix.parkourbeat.game.record.RunSamples;
+
+import java.util.UUID;
+
+/**
+ * Playback of the recorded run to a single viewer. Position between samples is interpolated
+ * by the real time elapsed since the start, so playback is smooth with any timer jitter.
+ * Ticked by the async timer and stopped from the main thread, so all methods are synchronized
+ */
+final class GhostPlayback {
+    private static final String GHOST_NAME = "Призрак";
+    private static final double NANOS_PER_TICK = 50_000_000.0;
+    /**
+     * Client needs the player info to render the skin, after that it can be removed from the tab list
+     */
+    private static final int PLAYER_INFO_REMOVE_DELAY_TICKS = 20;
+    /**
+     * Ghost stays at the finish for a while before despawning
+     */
+    private static final int DESPAWN_DELAY_TICKS = 40;
+
+    @Getter
+    private final @NonNull Player viewer;
+    private final @NonNull RunSamples samples;
+    private final int entityId;
+    private final @NonNull WrappedGameProfile profile;
+    private final long startedAtNanos;
+    private int cursor = 0;
+    private boolean playerInfoRemoved = false;
+    private boolean destroyed = false;
+
+    GhostPlayback(@NonNull Player viewer, @NonNull RunRecord record, int entityId, long startedAtNanos) {
+        this.viewer = viewer;
+        this.samples = record.samples();
+        this.entityId = entityId;
+        this.profile = new WrappedGameProfile(UUID.randomUUID(), GHOST_NAME);
+        this.startedAtNanos = startedAtNanos;
+    }
+
+    synchronized void spawn() {
+        GhostPackets.sendPlayerInfo(this.viewer, this.profile, true);
+        GhostPackets.sendSpawn(this.viewer, this.entityId, this.profile,
+            this.samples.getX(0), this.samples.getY(0), this.samples.getZ(0),
+            this.samples.getYaw(0), this.samples.getPitch(0));
+    }
+
+    /**
+     * @return False if playback is finished
+     */
+    synchronized boolean tick(long nowNanos) {
+        if (this.destroyed) return false;
+        double elapsedTicks = (nowNanos - this.startedAtNanos) / NANOS_PER_TICK;
+        if (!this.playerInfoRemoved && elapsedTicks >= PLAYER_INFO_REMOVE_DELAY_TICKS) {
+            this.playerInfoRemoved = true;
+            GhostPackets.sendPlayerInfo(this.viewer, this.profile, false);
+        }
+
+        int last = this.samples.size() - 1;
+        double recordTick = this.samples.getTick(0) + elapsedTicks;
+        if (recordTick >= this.samples.getTick(last) + DESPAWN_DELAY_TICKS) return false;
+
+        while (this.cursor < last && this.samples.getTick(this.cursor + 1) <= recordTick) {
+            this.cursor++;
+        }
+
+        int from = this.cursor;
+        int to = Math.min(last, from + 1);
+        int fromTick = this.samples.getTick(from);
+        int toTick = this.samples.getTick(to);
+        double ratio = toTick > fromTick ? Math.min(1, (recordTick - fromTick) / (toTick - fromTick)) : 0;
+
+        GhostPackets.sendTeleport(this.viewer, this.entityId,
+            lerp(this.samples.getX(from), this.samples.getX(to), ratio),
+            lerp(this.samples.getY(from), this.samples.getY(to), ratio),
+            lerp(this.samples.getZ(from), this.samples.getZ(to), ratio),
+            lerpAngle(this.samples.getYaw(from), this.samples.getYaw(to), ratio),
+            (float) lerp(this.samples.getPitch(from), this.samples.getPitch(to), ratio),
+            (this.samples.getFlags(to) & RunSamples.FLAG_ON_GROUND) != 0
+        );
+        return true;
+    }
+
+    synchronized void destroy() {
+        if (this.destroyed) return;
+        this.destroyed = true;
+        GhostPackets.sendDestroy(this.viewer, this.entityId);
+        if (!this.playerInfoRemoved) {
+            this.playerInfoRemoved = true;
+            GhostPackets.sendPlayerInfo(this.viewer, this.profile, false);
+        }
+    }
+
+    private static double lerp(double from, double to, double ratio) {
+        return from + (to - from) * ratio;
+    }
+
+    private static float lerpAngle(float from, float to, double ratio) {
+        float delta = ((to - from) % 360 + 540) % 360 - 180; // shortest way
+        return (float) (from + delta * ratio);
+    }
+}
@@ -0,0 +1,123 @@
+package ru.sortix.parkourbeat.game.ghost;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.game.record.RunRecord;
+import ru.sortix.parkourbeat.game.record.RunRecordsManager;
+import ru.sortix.parkourbeat.lifecycle.PluginManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Plays the fastest run of the level to its runners as a fake player. Ghosts exist only in packets
+ * sent to their runner, so they cost nothing in the level world. Decoded runs are cached per level
+ * and shared by all ghosts of the level
+ */
+public class GhostsManager implements PluginManager {
+    /**
+     * Far above entity ids allocated by the server
+     */
+    private static final int FIRST_ENTITY_ID = 1_500_000_000;
+
+    private final @NonNull ParkourBeat plugin;
+    @Getter
+    private final boolean enabled;
+    private final @NonNull Map<UUID, CompletableFuture<RunRecord>> fastestRuns = new ConcurrentHashMap<>();
+    private final @NonNull Map<Player, GhostPlayback> playbacks = new ConcurrentHashMap<>();
+    private final @NonNull AtomicInteger nextEntityId = new AtomicInteger(FIRST_ENTITY_ID);
+    private final @NonNull BukkitTask playbackTask;
+
+    public GhostsManager(@NonNull ParkourBeat plugin) {
+        this.plugin = plugin;
+        this.enabled = plugin.getConfig().getBoolean("ghosts.enabled", true);
+        this.playbackTask = plugin.getServer().getScheduler()
+            .runTaskTimerAsynchronously(plugin, this::tickPlaybacks, 1, 1);
+    }
+
+    @NonNull
+    private CompletableFuture<RunRecord> getFastestRun(@NonNull UUID levelId) {
+        return this.fastestRuns.computeIfAbsent(levelId,
+            id -> this.plugin.get(RunRecordsManager.class).loadFastestCompletedRunAsync(id));
+    }
+
+    /**
+     * Starts loading of the fastest run, so it's ready when the game starts
+     */
+    public void preloadFastestRun(@NonNull UUID levelId) {
+        if (this.enabled) this.getFastestRun(levelId);
+    }
+
+    /**
+     * Forgets cached fastest run of the unloaded or deleted level
+     */
+    public void evictLevel(@NonNull UUID levelId) {
+        this.fastestRuns.remove(levelId);
+    }
+
+    /**
+     * Replaces cached fastest run of the level if the new one is faster
+     */
+    public void onRunFinished(@NonNull RunRecord record) {
+        if (!record.completed() || record.samples().getDroppedSamples() > 0) return;
+        // Not cached runs will be loaded from disk after the record is saved
+        this.fastestRuns.computeIfPresent(record.levelId(), (levelId, fastestRun) -> fastestRun.thenApply(
+            fastest -> fastest == null || record.getDurationTicks() < fastest.getDurationTicks() ? record : fastest));
+    }
+
+    /**
+     * Starts playback synchronously with the game start. Nothing is played if the fastest run is not loaded yet
+     */
+    public void startPlayback(@NonNull Player player, @NonNull UUID levelId) {
+        if (!this.enabled) return;
+        this.stopPlayback(player);
+
+        RunRecord record = this.getFastestRun(levelId).getNow(null);
+        if (record == null || record.samples().size() == 0) return;
+
+        GhostPlayback playback = new GhostPlayback(
+            player, record, this.nextEntityId.getAndIncrement(), System.nanoTime());
+        playback.spawn();
+        this.playbacks.put(player, playback);
+    }
+
+    public void stopPlayback(@NonNull Player player) {
+        GhostPlayback playback = this.playbacks.remove(player);
+        if (playback != null) playback.destroy();
+    }
+
+    public int getPlaybacksAmount() {
+        return this.playbacks.size();
+    }
+
+    private void tickPlaybacks() {
+        long now = System.nanoTime();
+        for (GhostPlayback playback : this.playbacks.values()) {
+            Player viewer = playback.getViewer();
+            try {
+                if (viewer.isOnline() && playback.tick(now)) continue;
+                if (this.playbacks.remove(viewer, playback) && viewer.isOnline()) playback.destroy();
+            } catch (Exception e) {
+                this.playbacks.remove(viewer, playback);
+                this.plugin.getLogger().log(Level.SEVERE, "Unable to play ghost to player " + viewer.getName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void disable() {
+        this.playbackTask.cancel();
+        for (GhostPlayback playback : this.playbacks.values()) {
+            if (playback.getViewer().isOnline()) playback.destroy();
+        }
+        this.playbacks.clear();
+        this.fastestRuns.clear();
+    }
+}
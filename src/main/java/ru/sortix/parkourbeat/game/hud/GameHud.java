@@ -0,0 +1,88 @@
+package ru.sortix.parkourbeat.game.hud;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import ru.sortix.parkourbeat.game.Game;
+
+/**
+ * Boss bar with the passed progress and action bar with the accuracy of one running game.
+ * Rendered values are cached, so nothing is sent while the displayed values stay the same.
+ * Used from the main thread only
+ */
+final class GameHud {
+    private static final String[] PROGRESS_TITLES = new String[101];
+    /**
+     * Client hides the action bar after 3 seconds, so the unchanged accuracy is sent again before that
+     */
+    private static final int ACTION_BAR_REFRESH_TICKS = 40;
+
+    static {
+        for (int percent = 0; percent < PROGRESS_TITLES.length; percent++) {
+            PROGRESS_TITLES[percent] = percent + "%";
+        }
+    }
+
+    @Getter
+    private final @NonNull Game game;
+    private final @NonNull BossBar bossBar;
+    private int displayedPercent = 0;
+    /**
+     * Accuracy in hundredths of a percent, as it's displayed
+     */
+    private int displayedAccuracy = Integer.MIN_VALUE;
+    private Component accuracyComponent = null;
+    private int ticksSinceActionBar = 0;
+
+    GameHud(@NonNull Game game) {
+        this.game = game;
+        this.bossBar = Bukkit.createBossBar(PROGRESS_TITLES[0], BarColor.YELLOW, BarStyle.SOLID);
+        this.bossBar.setProgress(0.0);
+        this.bossBar.addPlayer(game.getPlayer());
+    }
+
+    /**
+     * @return Amount of the packets not sent because the displayed values are unchanged
+     */
+    int update() {
+        int skippedPackets = 0;
+
+        int percent = (int) Math.round(this.game.getPassedProgress() * 100);
+        if (percent == this.displayedPercent) {
+            skippedPackets += 2; // Title and progress
+        } else {
+            this.displayedPercent = percent;
+            this.bossBar.setTitle(PROGRESS_TITLES[percent]);
+            this.bossBar.setProgress(percent / 100.0);
+        }
+
+        int accuracy = (int) Math.round(this.game.getGameMoveHandler().getAccuracy() * 10_000);
+        if (accuracy != this.displayedAccuracy) {
+            this.displayedAccuracy = accuracy;
+            this.accuracyComponent = Component.text(
+                "Точность: " + accuracy / 100 + "." + twoDigits(accuracy % 100) + "%",
+                NamedTextColor.GREEN
+            );
+        } else if (++this.ticksSinceActionBar < ACTION_BAR_REFRESH_TICKS) {
+            return skippedPackets + 1;
+        }
+        this.ticksSinceActionBar = 0;
+        this.game.getPlayer().sendActionBar(this.accuracyComponent);
+        return skippedPackets;
+    }
+
+    void remove() {
+        this.bossBar.removeAll();
+    }
+
+    @NonNull
+    private static String twoDigits(int value) {
+        return value < 10 ? "0" + value : String.valueOf(value);
+    }
+}
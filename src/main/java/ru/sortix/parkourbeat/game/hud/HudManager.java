@@ -0,0 +1,94 @@
+package ru.sortix.parkourbeat.game.hud;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.game.Game;
+import ru.sortix.parkourbeat.lifecycle.PluginManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Updates boss bars and action bars of all running games in a single pass every tick
+ * instead of a separate task per game. Used from the main thread only
+ */
+public class HudManager implements PluginManager {
+    private static final int STATS_WINDOW_TICKS = 20;
+
+    private final @NonNull ParkourBeat plugin;
+    private final @NonNull Map<Player, GameHud> huds = new LinkedHashMap<>();
+    private final @NonNull BukkitTask updateTask;
+    @Getter
+    private long sentPackets = 0;
+    @Getter
+    private long skippedPackets = 0;
+    private int windowTicks = 0;
+    private long windowSkippedPackets = 0;
+    /**
+     * Packets skipped in the last full second because the displayed values were unchanged
+     */
+    @Getter
+    private long savedPacketsPerSecond = 0;
+
+    public HudManager(@NonNull ParkourBeat plugin) {
+        this.plugin = plugin;
+        this.updateTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::updateAll, 1, 1);
+    }
+
+    public void show(@NonNull Game game) {
+        this.hide(game.getPlayer());
+        this.huds.put(game.getPlayer(), new GameHud(game));
+    }
+
+    public void hide(@NonNull Player player) {
+        GameHud hud = this.huds.remove(player);
+        if (hud != null) hud.remove();
+    }
+
+    public int getHudsAmount() {
+        return this.huds.size();
+    }
+
+    private void updateAll() {
+        Iterator<GameHud> iterator = this.huds.values().iterator();
+        while (iterator.hasNext()) {
+            GameHud hud = iterator.next();
+            Player player = hud.getGame().getPlayer();
+            if (!player.isOnline() || hud.getGame().getCurrentState() != Game.State.RUNNING) {
+                iterator.remove();
+                hud.remove();
+                continue;
+            }
+            try {
+                int skipped = hud.update();
+                this.skippedPackets += skipped;
+                this.windowSkippedPackets += skipped;
+                this.sentPackets += 3 - skipped; // Boss bar title, boss bar progress and action bar
+            } catch (Exception e) {
+                iterator.remove();
+                hud.remove();
+                this.plugin.getLogger().log(Level.SEVERE, "Unable to update HUD of player " + player.getName(), e);
+            }
+        }
+
+        if (++this.windowTicks >= STATS_WINDOW_TICKS) {
+            this.savedPacketsPerSecond = this.windowSkippedPackets;
+            this.windowSkippedPackets = 0;
+            this.windowTicks = 0;
+        }
+    }
+
+    @Override
+    public void disable() {
+        this.updateTask.cancel();
+        for (GameHud hud : this.huds.values()) {
+            hud.remove();
+        }
+        this.huds.clear();
+    }
+}
@@ -0,0 +1,43 @@
+package ru.sortix.parkourbeat.game.leaderboard;
+
+import lombok.NonNull;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Result of the completed run. Faster runs are better, equal runs are compared by accuracy
+ */
+public record LeaderboardEntry(@NonNull UUID playerId,
+                               long durationMillis,
+                               float accuracy,
+                               long finishedAtMillis) {
+
+    public static final Comparator<LeaderboardEntry> BEST_FIRST = Comparator
+        .comparingLong(LeaderboardEntry::durationMillis)
+        .thenComparing(Comparator.comparingDouble(LeaderboardEntry::accuracy).reversed())
+        .thenComparingLong(LeaderboardEntry::finishedAtMillis)
+        .thenComparing(LeaderboardEntry::playerId);
+
+    public boolean isBetterThan(@NonNull LeaderboardEntry other) {
+        return BEST_FIRST.compare(this, other) < 0;
+    }
+
+    @NonNull
+    public String getFormattedDuration() {
+        return formatDuration(this.durationMillis);
+    }
+
+    @NonNull
+    public String getFormattedAccuracy() {
+        return String.format("%.2f%%", this.accuracy * 100);
+    }
+
+    @NonNull
+    public static String formatDuration(long millis) {
+        long minutes = millis / 60_000;
+        long seconds = millis / 1000 % 60;
+        if (minutes > 0) return String.format("%d:%02d.%03d", minutes, seconds, millis % 1000);
+        return String.format("%d.%03d с", seconds, millis % 1000);
+    }
+}
@@ -0,0 +1,135 @@
+package ru.sortix.parkourbeat.game.leaderboard;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of the level results. Entries have a fixed size, so an entry
+ * cut by a crash in the middle of the append is detected and truncated on read
+ *
+ * <pre>
+ * int     magic "PBLB"
+ * byte    version
+ * entries:
+ *   long[2] player id
+ *   long    duration in millis
+ *   float   accuracy
+ *   long    finish time in epoch millis
+ * </pre>
+ */
+@UtilityClass
+class LeaderboardLog {
+    private final int MAGIC = 0x50424C42;
+    private final int VERSION = 1;
+    private final int HEADER_SIZE = 5;
+    private final int ENTRY_SIZE = 36;
+
+    /**
+     * Must be called before the first append, so the next entries are not appended after the cut one
+     *
+     * @return Amount of the read entries
+     */
+    int read(@NonNull File file, @NonNull Consumer<LeaderboardEntry> consumer) throws IOException {
+        if (!file.isFile()) return 0;
+        long length = file.length();
+        if (length < HEADER_SIZE) {
+            truncate(file, 0); // Header was not written completely
+            return 0;
+        }
+        int amount = (int) ((length - HEADER_SIZE) / ENTRY_SIZE);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            readHeader(in);
+            for (int i = 0; i < amount; i++) {
+                consumer.accept(new LeaderboardEntry(
+                    new UUID(in.readLong(), in.readLong()),
+                    in.readLong(),
+                    in.readFloat(),
+                    in.readLong()
+                ));
+            }
+        }
+        long validLength = HEADER_SIZE + (long) amount * ENTRY_SIZE;
+        if (validLength != length) truncate(file, validLength);
+        return amount;
+    }
+
+    private void truncate(@NonNull File file, long length) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(length);
+        }
+    }
+
+    private void readHeader(@NonNull DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        if (magic != MAGIC) {
+            throw new IOException("Wrong leaderboard log magic: " + Integer.toHexString(magic));
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported leaderboard log version: " + version);
+        }
+    }
+
+    void append(@NonNull File file, @NonNull Collection<LeaderboardEntry> entries) throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        boolean writeHeader = !file.isFile() || file.length() == 0;
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            if (writeHeader) writeHeader(out);
+            for (LeaderboardEntry entry : entries) {
+                writeEntry(out, entry);
+            }
+        }
+    }
+
+    /**
+     * Replaces the log with the given entries
+     */
+    void rewrite(@NonNull File file, @NonNull Collection<LeaderboardEntry> entries) throws IOException {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                writeHeader(out);
+                for (LeaderboardEntry entry : entries) {
+                    writeEntry(out, entry);
+                }
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+        }
+    }
+
+    private void writeHeader(@NonNull DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    private void writeEntry(@NonNull DataOutputStream out, @NonNull LeaderboardEntry entry) throws IOException {
+        out.writeLong(entry.playerId().getMostSignificantBits());
+        out.writeLong(entry.playerId().getLeastSignificantBits());
+        out.writeLong(entry.durationMillis());
+        out.writeFloat(entry.accuracy());
+        out.writeLong(entry.finishedAtMillis());
+    }
+}
@@ -0,0 +1,176 @@
+package ru.sortix.parkourbeat.game.leaderboard;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.configuration.ConfigurationSection;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.levels.LevelsManager;
+import ru.sortix.parkourbeat.levels.dao.LevelSettingDAO;
+import ru.sortix.parkourbeat.levels.settings.GameSettings;
+import ru.sortix.parkourbeat.lifecycle.PluginManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Best results of the levels. Results are kept in memory, so menus read them instantly,
+ * and are appended to the log file of the level in batches by a single background thread.
+ * Logs are compacted to the best result of each player once they grow too much
+ */
+public class LeaderboardsManager implements PluginManager {
+    private static final String LOG_FILE_NAME = "leaderboard.log";
+    /**
+     * Logs shorter than this are never compacted
+     */
+    private static final int MIN_COMPACTION_ENTRIES = 64;
+
+    private final @NonNull ParkourBeat plugin;
+    private final @NonNull LevelSettingDAO levelSettingDAO;
+    @Getter
+    private final int topSize;
+    private final @NonNull Map<UUID, LevelLeaderboard> leaderboards = new ConcurrentHashMap<>();
+    private final @NonNull Queue<PendingEntry> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final @NonNull ScheduledExecutorService writer;
+    private final @NonNull CompletableFuture<Void> indexLoading;
+
+    public LeaderboardsManager(@NonNull ParkourBeat plugin) {
+        this.plugin = plugin;
+        LevelsManager levelsManager = plugin.get(LevelsManager.class);
+        this.levelSettingDAO = levelsManager.getLevelsSettings().getLevelSettingDAO();
+
+        ConfigurationSection config = plugin.getConfig().getConfigurationSection("leaderboard");
+        this.topSize = config == null ? 10 : config.getInt("top_size", 10);
+        long flushPeriodMillis = config == null ? 5000 : config.getLong("flush_period_millis", 5000);
+        if (this.topSize < 1) {
+            throw new IllegalArgumentException("Wrong leaderboard top size: " + this.topSize);
+        }
+        if (flushPeriodMillis < 1) {
+            throw new IllegalArgumentException("Wrong leaderboard flush period: " + flushPeriodMillis);
+        }
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ParkourBeat Leaderboards");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Indexes are filled before the first flush, so appends never precede reads
+        List<UUID> levelIds = new ArrayList<>();
+        for (GameSettings settings : levelsManager.getAvailableLevelsSettings()) {
+            levelIds.add(settings.getUniqueId());
+        }
+        this.indexLoading = CompletableFuture.runAsync(() -> this.loadAll(levelIds), this.writer);
+        this.writer.scheduleWithFixedDelay(this::flush, flushPeriodMillis, flushPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @NonNull
+    public LevelLeaderboard getLeaderboard(@NonNull UUID levelId) {
+        return this.leaderboards.computeIfAbsent(levelId, id -> new LevelLeaderboard(this.topSize));
+    }
+
+    /**
+     * @return True if the results saved before the startup are in the index
+     */
+    public boolean isIndexLoaded() {
+        return this.indexLoading.isDone() && !this.indexLoading.isCompletedExceptionally();
+    }
+
+    /**
+     * Adds the result to the index and queues it for writing
+     *
+     * @return True if it's the best result of the player. Always false until the index is loaded,
+     * because the saved results of the player are unknown yet
+     */
+    public boolean submit(@NonNull UUID levelId, @NonNull LeaderboardEntry entry) {
+        boolean indexLoaded = this.isIndexLoaded();
+        boolean playerBest = this.getLeaderboard(levelId).submit(entry);
+        this.pendingEntries.add(new PendingEntry(levelId, entry));
+        return indexLoaded && playerBest;
+    }
+
+    @NonNull
+    private File getLogFile(@NonNull UUID levelId) {
+        return new File(this.levelSettingDAO.getSettingsDirectory(levelId), LOG_FILE_NAME);
+    }
+
+    private void loadAll(@NonNull List<UUID> levelIds) {
+        long startedAtNanos = System.nanoTime();
+        int entries = 0;
+        for (UUID levelId : levelIds) {
+            LevelLeaderboard leaderboard = this.getLeaderboard(levelId);
+            File file = this.getLogFile(levelId);
+            try {
+                int amount = LeaderboardLog.read(file, leaderboard::submit);
+                leaderboard.addLogEntries(amount);
+                entries += amount;
+            } catch (Exception e) {
+                this.plugin.getLogger().log(Level.SEVERE, "Unable to read leaderboard log " + file, e);
+            }
+        }
+        this.plugin.getLogger().info("Loaded " + entries + " leaderboard entries of " + levelIds.size()
+            + " levels in " + (System.nanoTime() - startedAtNanos) / 1_000_000 + " ms");
+    }
+
+    private void flush() {
+        if (this.pendingEntries.isEmpty()) return;
+
+        Map<UUID, List<LeaderboardEntry>> entriesByLevel = new LinkedHashMap<>();
+        PendingEntry pending;
+        while ((pending = this.pendingEntries.poll()) != null) {
+            entriesByLevel.computeIfAbsent(pending.levelId(), id -> new ArrayList<>()).add(pending.entry());
+        }
+
+        for (Map.Entry<UUID, List<LeaderboardEntry>> levelEntries : entriesByLevel.entrySet()) {
+            LevelLeaderboard leaderboard = this.getLeaderboard(levelEntries.getKey());
+            File file = this.getLogFile(levelEntries.getKey());
+            try {
+                LeaderboardLog.append(file, levelEntries.getValue());
+                leaderboard.addLogEntries(levelEntries.getValue().size());
+                this.compactIfNeeded(leaderboard, file);
+            } catch (Exception e) {
+                this.plugin.getLogger().log(Level.SEVERE, "Unable to write leaderboard log " + file, e);
+            }
+        }
+    }
+
+    private void compactIfNeeded(@NonNull LevelLeaderboard leaderboard, @NonNull File file) throws Exception {
+        List<LeaderboardEntry> playerBests = leaderboard.getPlayerBests();
+        int logEntries = leaderboard.getLogEntries();
+        if (logEntries < MIN_COMPACTION_ENTRIES || logEntries < playerBests.size() * 2) return;
+        playerBests.sort(LeaderboardEntry.BEST_FIRST);
+        LeaderboardLog.rewrite(file, playerBests);
+        leaderboard.setLogEntries(playerBests.size());
+    }
+
+    @Override
+    public void disable() {
+        try {
+            this.writer.execute(this::flush);
+        } catch (RejectedExecutionException ignored) {
+        }
+        this.writer.shutdown();
+        try {
+            if (!this.writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                this.plugin.getLogger().warning("Some leaderboard entries were not saved in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record PendingEntry(@NonNull UUID levelId, @NonNull LeaderboardEntry entry) {
+    }
+}
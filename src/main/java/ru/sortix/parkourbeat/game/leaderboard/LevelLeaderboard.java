@@ -0,0 +1,87 @@
+package ru.sortix.parkourbeat.game.leaderboard;
+
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * In-memory index of the level results: best result of each player and the top of these results.
+ * Merging results doesn't depend on their order, so the index can be filled from the log
+ * while new results are being submitted. Reads of the top don't take the lock
+ */
+public class LevelLeaderboard {
+    private final int topSize;
+    private final @NonNull Map<UUID, LeaderboardEntry> bestByPlayer = new HashMap<>();
+    private final @NonNull TreeSet<LeaderboardEntry> top = new TreeSet<>(LeaderboardEntry.BEST_FIRST);
+    private volatile @NonNull List<LeaderboardEntry> topSnapshot = Collections.emptyList();
+    /**
+     * Amount of the entries in the log file, used to decide when to compact it
+     */
+    private int logEntries = 0;
+
+    LevelLeaderboard(int topSize) {
+        this.topSize = topSize;
+    }
+
+    /**
+     * @return True if it's the best result of the player
+     */
+    synchronized boolean submit(@NonNull LeaderboardEntry entry) {
+        LeaderboardEntry previous = this.bestByPlayer.get(entry.playerId());
+        if (previous != null && !entry.isBetterThan(previous)) return false;
+        this.bestByPlayer.put(entry.playerId(), entry);
+
+        // Better result of the player is always in the top if the previous one was there
+        boolean topChanged = previous != null && this.top.remove(previous);
+        if (this.top.size() < this.topSize || entry.isBetterThan(this.top.last())) {
+            this.top.add(entry);
+            if (this.top.size() > this.topSize) this.top.pollLast();
+            topChanged = true;
+        }
+        if (topChanged) this.topSnapshot = List.copyOf(this.top);
+        return true;
+    }
+
+    /**
+     * @return Best results of different players, the best first
+     */
+    @NonNull
+    public List<LeaderboardEntry> getTop() {
+        return this.topSnapshot;
+    }
+
+    @Nullable
+    public LeaderboardEntry getBest() {
+        List<LeaderboardEntry> top = this.topSnapshot;
+        return top.isEmpty() ? null : top.get(0);
+    }
+
+    @Nullable
+    public synchronized LeaderboardEntry getPlayerBest(@NonNull UUID playerId) {
+        return this.bestByPlayer.get(playerId);
+    }
+
+    @NonNull
+    synchronized List<LeaderboardEntry> getPlayerBests() {
+        return new ArrayList<>(this.bestByPlayer.values());
+    }
+
+    synchronized int getLogEntries() {
+        return this.logEntries;
+    }
+
+    synchronized void addLogEntries(int amount) {
+        this.logEntries += amount;
+    }
+
+    synchronized void setLogEntries(int amount) {
+        this.logEntries = amount;
+    }
+}
@@ -2,8 +2,6 @@ package ru.sortix.parkourbeat.game.movement;
 
 import lombok.Getter;
 import lombok.NonNull;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
@@ -12,14 +10,15 @@ import org.bukkit.event.player.PlayerToggleSprintEvent;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.util.Vector;
+import ru.sortix.parkourbeat.activity.ActivityManager;
 import ru.sortix.parkourbeat.game.Game;
+import ru.sortix.parkourbeat.levels.DirectionChecker;
 import ru.sortix.parkourbeat.levels.settings.LevelSettings;
-import ru.sortix.parkourbeat.levels.settings.WorldSettings;
 
 import javax.annotation.Nullable;
 
 public class GameMoveHandler {
-    private static final boolean DISPLAY_DEBUG_FAIL_REASONS = true;
+    static final boolean DISPLAY_DEBUG_FAIL_REASONS = true;
 
     private static final int NOT_SPRINT_DAMAGE_PER_PERIOD = 1;
     private static final int NOT_SPRINT_DAMAGE_PERIOD_TICKS = 1;
@@ -28,23 +27,70 @@ public class GameMoveHandler {
     private final @NonNull Location startWaypoint;
     private final @NonNull Location finishWaypoint;
     private final @NonNull Vector startToFinishVector;
+    private final double startToFinishX, startToFinishY, startToFinishZ;
 
     @Getter
     private final @NonNull MovementAccuracyChecker accuracyChecker;
 
+    /**
+     * Validates movement on the packet thread if enabled, otherwise move events are used
+     */
+    private final @Nullable PacketMovementValidator packetValidator;
+
     private BukkitTask task;
 
     public GameMoveHandler(@NonNull Game game) {
         this.game = game;
 
         LevelSettings settings = game.getLevel().getLevelSettings();
-        WorldSettings worldSettings = settings.getWorldSettings();
-        this.accuracyChecker = new MovementAccuracyChecker(
-            worldSettings.getWaypoints(), settings.getDirectionChecker());
+        this.accuracyChecker = new MovementAccuracyChecker(settings.getMovementSegments());
 
         this.startWaypoint = settings.getStartWaypointLoc();
         this.finishWaypoint = settings.getFinishWaypointLoc();
         this.startToFinishVector = this.finishWaypoint.toVector().subtract(this.startWaypoint.toVector());
+        double length = this.startToFinishVector.length();
+        this.startToFinishX = this.startToFinishVector.getX() / length;
+        this.startToFinishY = this.startToFinishVector.getY() / length;
+        this.startToFinishZ = this.startToFinishVector.getZ() / length;
+
+        if (game.getPlugin().get(ActivityManager.class).isPacketMovementValidation()) {
+            this.packetValidator = new PacketMovementValidator(
+                game, this.accuracyChecker, settings.getDirectionChecker(),
+                this.finishWaypoint, this.startToFinishVector);
+        } else {
+            this.packetValidator = null;
+        }
+    }
+
+    public void onGameStarted(@NonNull Player player) {
+        if (this.packetValidator == null) return;
+        this.packetValidator.start(player.getLocation());
+        this.game.getPacketsAdapter().addMovementListener(player, this.packetValidator);
+    }
+
+    public void onGameStopped(@NonNull Player player) {
+        if (this.packetValidator == null) return;
+        this.game.getPacketsAdapter().removeMovementListener(player, this.packetValidator);
+        this.packetValidator.stop();
+    }
+
+    /**
+     * Applies outcome of the movement validated on the packet thread
+     */
+    public void onTick() {
+        if (this.packetValidator == null) return;
+        this.packetValidator.applyOutcome();
+    }
+
+    /**
+     * Must be called from the main thread
+     *
+     * @return Accuracy of the current run from 0.0 to 1.0
+     */
+    public double getAccuracy() {
+        return this.packetValidator == null
+            ? this.accuracyChecker.getAccuracy()
+            : this.packetValidator.getAccuracy();
     }
 
     public void onPreparingState(@NonNull PlayerMoveEvent event) {
@@ -65,12 +111,14 @@ public class GameMoveHandler {
     }
 
     public void onRunningState(@NonNull Player player, @NonNull Location from, @NonNull Location to) {
-        LevelSettings settings = this.game.getLevel().getLevelSettings();
-        if (settings.getDirectionChecker().isCorrectDirection(this.finishWaypoint, player.getLocation())) {
+        if (this.packetValidator != null) return; // Validated on the packet thread
+
+        DirectionChecker directionChecker = this.game.getLevel().getLevelSettings().getDirectionChecker();
+        if (directionChecker.isCorrectDirection(this.finishWaypoint, to)) {
             this.game.completeLevel();
             return;
         }
-        double angle = getLeftOrRightRotationAngle(player);
+        double angle = this.getLeftOrRightRotationAngle(to);
         if (angle > 100) {
             if (DISPLAY_DEBUG_FAIL_REASONS) {
                 this.game.failLevel("§cНеверный угол поворота: ", String.valueOf(angle));
@@ -79,10 +127,10 @@ public class GameMoveHandler {
             }
             return;
         }
-        if (!settings.getDirectionChecker().isCorrectDirection(from, to)) {
+        if (!directionChecker.isCorrectDirection(from, to)) {
             if (DISPLAY_DEBUG_FAIL_REASONS) {
-                double fromPos = settings.getDirectionChecker().getCoordinate(from);
-                double toPos = settings.getDirectionChecker().getCoordinate(to);
+                double fromPos = directionChecker.getCoordinate(from);
+                double toPos = directionChecker.getCoordinate(to);
                 this.game.failLevel("§cНеверные координаты: ", fromPos + " -> " + toPos);
             } else {
                 this.game.failLevel("§cНельзя бежать назад!", null);
@@ -90,10 +138,6 @@ public class GameMoveHandler {
             return;
         }
         this.accuracyChecker.onPlayerLocationChange(to);
-        player.sendActionBar(Component.text(
-            "Точность: " + String.format("%.2f", this.accuracyChecker.getAccuracy() * 100f) + "%",
-            NamedTextColor.GREEN
-        ));
     }
 
     public void onRunningState(@NonNull PlayerToggleSprintEvent event) {
@@ -110,9 +154,14 @@ public class GameMoveHandler {
         }
     }
 
-    private double getLeftOrRightRotationAngle(@NonNull Player player) {
-        Vector playerVector = player.getLocation().getDirection();
-        return Math.toDegrees(playerVector.angle(this.startToFinishVector));
+    private double getLeftOrRightRotationAngle(@NonNull Location location) {
+        double yaw = Math.toRadians(location.getYaw());
+        double pitch = Math.toRadians(location.getPitch());
+        double horizontal = Math.cos(pitch);
+        double dot = -Math.sin(yaw) * horizontal * this.startToFinishX
+            - Math.sin(pitch) * this.startToFinishY
+            + Math.cos(yaw) * horizontal * this.startToFinishZ;
+        return Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, dot))));
     }
 
     @SuppressWarnings("SameParameterValue")
@@ -3,49 +3,38 @@ package ru.sortix.parkourbeat.game.movement;
 import lombok.Getter;
 import lombok.NonNull;
 import org.bukkit.Location;
-import org.bukkit.util.Vector;
-import ru.sortix.parkourbeat.levels.DirectionChecker;
-import ru.sortix.parkourbeat.levels.Waypoint;
-
-import java.util.List;
+import ru.sortix.parkourbeat.levels.MovementSegments;
 
 public class MovementAccuracyChecker {
 
     private static final double MAX_ALLOW_OFFSET = 0.1;
-    private final @NonNull List<Waypoint> waypoints;
-    private final @NonNull DirectionChecker directionChecker;
+    private final @NonNull MovementSegments segments;
     @Getter
     private double accuracy;
     private int currentSegment;
     private int totalSteps;
     private double totalOffset;
 
-    public MovementAccuracyChecker(@NonNull List<Waypoint> waypoints, @NonNull DirectionChecker directionChecker) {
-        this.waypoints = waypoints;
-        this.directionChecker = directionChecker;
+    public MovementAccuracyChecker(@NonNull MovementSegments segments) {
+        this.segments = segments;
         this.reset();
     }
 
     public void onPlayerLocationChange(@NonNull Location newLocation) {
-        if (this.currentSegment >= this.waypoints.size() - 1) {
+        this.onPlayerLocationChange(newLocation.getX(), newLocation.getZ());
+    }
+
+    public void onPlayerLocationChange(double x, double z) {
+        int segmentsAmount = this.segments.getSegmentsAmount();
+        if (this.currentSegment >= segmentsAmount) {
             return;
         }
-        Location previousLocation = null;
-        if (this.currentSegment < this.waypoints.size() - 2) {
-            previousLocation = this.waypoints.get(this.currentSegment + 1).getLocation();
-            if (this.directionChecker.isCorrectDirection(previousLocation, newLocation)) {
-                this.currentSegment++;
-            } else {
-                previousLocation = null;
-            }
+        if (this.currentSegment < segmentsAmount - 1
+            && this.segments.getProgress(x, z) >= this.segments.getEndProgress(this.currentSegment)) {
+            this.currentSegment++;
         }
 
-        Location point1 = previousLocation != null
-            ? previousLocation
-            : this.waypoints.get(this.currentSegment).getLocation();
-        Location point2 = this.waypoints.get(this.currentSegment + 1).getLocation();
-
-        double distanceToLine = calculateDistanceToLine(newLocation, point1, point2);
+        double distanceToLine = this.segments.getDistanceToLine(this.currentSegment, x, z);
 
         if (distanceToLine > MAX_ALLOW_OFFSET) {
             this.totalOffset += distanceToLine - MAX_ALLOW_OFFSET;
@@ -63,27 +52,4 @@ public class MovementAccuracyChecker {
         this.totalSteps = 0;
         this.totalOffset = 0;
     }
-
-    /**
-     * Calculates the distance from a point to a line defined by two other points.
-     *
-     * @param point      the location of the point
-     * @param linePoint1 the first location defining the line
-     * @param linePoint2 the second location defining the line
-     * @return the distance from the point to the line
-     */
-    private double calculateDistanceToLine(@NonNull Location point, @NonNull Location linePoint1, @NonNull Location linePoint2) {
-        Vector lineVector = linePoint2.toVector().subtract(linePoint1.toVector());
-        Vector pointVector = point.toVector().subtract(linePoint1.toVector());
-
-        lineVector.setY(0);
-        pointVector.setY(0);
-
-        double dotProduct = lineVector.dot(pointVector);
-        Vector projection = lineVector.multiply(dotProduct / lineVector.lengthSquared());
-
-        Vector perpendicular = pointVector.subtract(projection);
-
-        return perpendicular.length();
-    }
 }
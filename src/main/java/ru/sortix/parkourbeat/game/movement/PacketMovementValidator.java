@@ -0,0 +1,142 @@
+package ru.sortix.parkourbeat.game.movement;
+
+import lombok.NonNull;
+import org.bukkit.Location;
+import org.bukkit.util.Vector;
+import ru.sortix.parkourbeat.activity.PacketMovementListener;
+import ru.sortix.parkourbeat.game.Game;
+import ru.sortix.parkourbeat.levels.DirectionChecker;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Validates movement of the runner on the packet thread. Keeps its own state of the run,
+ * and only the outcome (fail or completion) is handed over to the main thread
+ * by {@link #applyOutcome()}, which is called once per tick
+ */
+class PacketMovementValidator implements PacketMovementListener {
+    private final @NonNull Game game;
+    private final @NonNull MovementAccuracyChecker accuracyChecker;
+    private final @NonNull DirectionChecker directionChecker;
+    private final double finishProgress;
+    private final double startToFinishX, startToFinishY, startToFinishZ;
+    private final @NonNull AtomicReference<Runnable> outcome = new AtomicReference<>();
+
+    // Run state, guarded by this
+    private boolean active = false;
+    private double lastProgress;
+    private float lastYaw, lastPitch;
+
+    private volatile double accuracy = 1;
+
+    PacketMovementValidator(@NonNull Game game,
+                            @NonNull MovementAccuracyChecker accuracyChecker,
+                            @NonNull DirectionChecker directionChecker,
+                            @NonNull Location finishWaypoint,
+                            @NonNull Vector startToFinishVector
+    ) {
+        this.game = game;
+        this.accuracyChecker = accuracyChecker;
+        this.directionChecker = directionChecker;
+        this.finishProgress = directionChecker.getProgress(finishWaypoint);
+        double length = startToFinishVector.length();
+        this.startToFinishX = startToFinishVector.getX() / length;
+        this.startToFinishY = startToFinishVector.getY() / length;
+        this.startToFinishZ = startToFinishVector.getZ() / length;
+    }
+
+    /**
+     * Must be called from the main thread when the run is started
+     */
+    synchronized void start(@NonNull Location playerLocation) {
+        this.outcome.set(null);
+        this.lastProgress = this.directionChecker.getProgress(playerLocation);
+        this.lastYaw = playerLocation.getYaw();
+        this.lastPitch = playerLocation.getPitch();
+        this.accuracy = this.accuracyChecker.getAccuracy();
+        this.active = true;
+    }
+
+    /**
+     * Must be called from the main thread when the run is stopped. After returning from this method
+     * the validator doesn't touch the accuracy checker anymore
+     */
+    synchronized void stop() {
+        this.active = false;
+        this.outcome.set(null);
+    }
+
+    @Override
+    public synchronized void onMove(double x, double y, double z, float yaw, float pitch, boolean hasLook,
+                                    long receivedAtNanos) {
+        if (!this.active) return;
+        if (hasLook) {
+            this.lastYaw = yaw;
+            this.lastPitch = pitch;
+        }
+        double progress = this.directionChecker.getProgress(x, z);
+
+        if (progress >= this.finishProgress) {
+            this.finish(this.game::completeLevel);
+            return;
+        }
+
+        double angle = this.getLeftOrRightRotationAngle();
+        if (angle > 100) {
+            if (GameMoveHandler.DISPLAY_DEBUG_FAIL_REASONS) {
+                this.finish(() -> this.game.failLevel("§cНеверный угол поворота: ", String.valueOf(angle)));
+            } else {
+                this.finish(() -> this.game.failLevel("§cНельзя бежать назад!", null));
+            }
+            return;
+        }
+
+        double previousProgress = this.lastProgress;
+        this.lastProgress = progress;
+        if (progress < previousProgress) {
+            if (GameMoveHandler.DISPLAY_DEBUG_FAIL_REASONS) {
+                double fromPos = this.directionChecker.toCoordinate(previousProgress);
+                double toPos = this.directionChecker.toCoordinate(progress);
+                this.finish(() -> this.game.failLevel("§cНеверные координаты: ", fromPos + " -> " + toPos));
+            } else {
+                this.finish(() -> this.game.failLevel("§cНельзя бежать назад!", null));
+            }
+            return;
+        }
+
+        this.accuracyChecker.onPlayerLocationChange(x, z);
+        this.accuracy = this.accuracyChecker.getAccuracy();
+    }
+
+    private void finish(@NonNull Runnable outcome) {
+        this.active = false;
+        this.outcome.compareAndSet(null, outcome);
+    }
+
+    private double getLeftOrRightRotationAngle() {
+        double yaw = Math.toRadians(this.lastYaw);
+        double pitch = Math.toRadians(this.lastPitch);
+        double horizontal = Math.cos(pitch);
+        double dot = -Math.sin(yaw) * horizontal * this.startToFinishX
+            - Math.sin(pitch) * this.startToFinishY
+            + Math.cos(yaw) * horizontal * this.startToFinishZ;
+        return Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, dot))));
+    }
+
+    /**
+     * Must be called from the main thread every tick
+     */
+    void applyOutcome() {
+        Runnable outcome = this.outcome.getAndSet(null);
+        if (outcome != null && this.game.getCurrentState() == Game.State.RUNNING) {
+            outcome.run();
+        }
+    }
+
+    /**
+     * @return Accuracy of the run, updated from the packet thread
+     */
+    double getAccuracy() {
+        return this.accuracy;
+    }
+}
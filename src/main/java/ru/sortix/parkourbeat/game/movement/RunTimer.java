@@ -0,0 +1,81 @@
+package ru.sortix.parkourbeat.game.movement;
+
+import lombok.NonNull;
+import ru.sortix.parkourbeat.activity.PacketMovementListener;
+import ru.sortix.parkourbeat.levels.DirectionChecker;
+import ru.sortix.parkourbeat.levels.settings.LevelSettings;
+
+/**
+ * Times the run by the receive time of the movement packets, so the time is not affected by the main thread lag.
+ * Exact moments of crossing the start and finish lines are interpolated between the two packets
+ * on different sides of the line
+ */
+public class RunTimer implements PacketMovementListener {
+    public static final long NOT_CROSSED = Long.MIN_VALUE;
+
+    private final @NonNull DirectionChecker directionChecker;
+    private final double startProgress;
+    private final double finishProgress;
+
+    // Guarded by this
+    private boolean hasLastSample = false;
+    private double lastProgress;
+    private long lastNanos;
+    private long startNanos = NOT_CROSSED;
+    private long finishNanos = NOT_CROSSED;
+
+    public RunTimer(@NonNull LevelSettings settings) {
+        this.directionChecker = settings.getDirectionChecker();
+        this.startProgress = this.directionChecker.toProgress(settings.getStartPosition());
+        this.finishProgress = this.directionChecker.toProgress(settings.getFinishPosition());
+    }
+
+    /**
+     * Forgets crossed lines. Must be called before the player is able to cross the start line again
+     */
+    public synchronized void reset() {
+        this.hasLastSample = false;
+        this.startNanos = NOT_CROSSED;
+        this.finishNanos = NOT_CROSSED;
+    }
+
+    @Override
+    public synchronized void onMove(double x, double y, double z, float yaw, float pitch, boolean hasLook,
+                                    long receivedAtNanos) {
+        double progress = this.directionChecker.getProgress(x, z);
+        if (this.hasLastSample) {
+            if (this.startNanos == NOT_CROSSED) {
+                this.startNanos = this.getCrossingNanos(this.startProgress, progress, receivedAtNanos);
+            } else if (progress < this.startProgress) {
+                // Returned behind the start line, e.g. moved while the game was not ready
+                this.startNanos = NOT_CROSSED;
+                this.finishNanos = NOT_CROSSED;
+            } else if (this.finishNanos == NOT_CROSSED) {
+                this.finishNanos = this.getCrossingNanos(this.finishProgress, progress, receivedAtNanos);
+            }
+        }
+        this.hasLastSample = true;
+        this.lastProgress = progress;
+        this.lastNanos = receivedAtNanos;
+    }
+
+    private long getCrossingNanos(double lineProgress, double progress, long receivedAtNanos) {
+        if (this.lastProgress >= lineProgress || progress < lineProgress) return NOT_CROSSED;
+        double ratio = (lineProgress - this.lastProgress) / (progress - this.lastProgress);
+        return this.lastNanos + Math.round((receivedAtNanos - this.lastNanos) * ratio);
+    }
+
+    /**
+     * @return {@link System#nanoTime()} of crossing the start line or {@link #NOT_CROSSED}
+     */
+    public synchronized long getStartNanos() {
+        return this.startNanos;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} of crossing the finish line or {@link #NOT_CROSSED}
+     */
+    public synchronized long getFinishNanos() {
+        return this.finishNanos;
+    }
+}
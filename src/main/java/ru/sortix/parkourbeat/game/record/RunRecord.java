@@ -0,0 +1,24 @@
+package ru.sortix.parkourbeat.game.record;
+
+import lombok.NonNull;
+
+import java.util.UUID;
+
+/**
+ * Recorded run of the level. Samples must not be modified after the run is finished
+ */
+public record RunRecord(@NonNull UUID levelId,
+                        @NonNull UUID playerId,
+                        long startedAtMillis,
+                        boolean completed,
+                        @NonNull RunSamples samples) {
+
+    /**
+     * @return Duration of the run in ticks
+     */
+    public int getDurationTicks() {
+        int size = this.samples.size();
+        if (size == 0) return 0;
+        return this.samples.getTick(size - 1) - this.samples.getTick(0);
+    }
+}
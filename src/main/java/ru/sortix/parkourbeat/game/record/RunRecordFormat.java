@@ -0,0 +1,134 @@
+package ru.sortix.parkourbeat.game.record;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+/**
+ * Binary format of the recorded runs. Each sample is stored as zigzag varint deltas
+ * from the previous one, so a regular run takes a few bytes per tick
+ *
+ * <pre>
+ * int     magic "PBRR"
+ * byte    version
+ * long[2] level id
+ * long[2] player id
+ * long    start time in epoch millis
+ * byte    1 if level completed, otherwise 0
+ * varint  samples amount
+ * varint  samples dropped by the ring buffer
+ * samples: varint deltas of tick, x, y, z, yaw, pitch and byte of flags
+ * </pre>
+ */
+@UtilityClass
+public class RunRecordFormat {
+    public final String FILE_EXTENSION = ".pbrun";
+
+    private final int MAGIC = 0x50425252;
+    private final int VERSION = 1;
+
+    public void write(@NonNull OutputStream outputStream, @NonNull RunRecord record) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeUniqueId(out, record.levelId());
+        writeUniqueId(out, record.playerId());
+        out.writeLong(record.startedAtMillis());
+        out.writeByte(record.completed() ? 1 : 0);
+
+        RunSamples samples = record.samples();
+        int size = samples.size();
+        writeVarLong(out, size);
+        writeVarLong(out, samples.getDroppedSamples());
+
+        int tick = 0, x = 0, y = 0, z = 0, yaw = 0, pitch = 0;
+        for (int sample = 0; sample < size; sample++) {
+            tick = writeDelta(out, tick, samples.getTick(sample));
+            x = writeDelta(out, x, samples.getRawX(sample));
+            y = writeDelta(out, y, samples.getRawY(sample));
+            z = writeDelta(out, z, samples.getRawZ(sample));
+            yaw = writeDelta(out, yaw, samples.getRawYaw(sample));
+            pitch = writeDelta(out, pitch, samples.getRawPitch(sample));
+            out.writeByte(samples.getFlags(sample));
+        }
+        out.flush();
+    }
+
+    /**
+     * @param maxSamples Max samples amount of the record, checked before the samples are allocated
+     */
+    @NonNull
+    public RunRecord read(@NonNull InputStream inputStream, int maxSamples) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) throw new IOException("Not a run record");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported run record version: " + version);
+        UUID levelId = readUniqueId(in);
+        UUID playerId = readUniqueId(in);
+        long startedAtMillis = in.readLong();
+        boolean completed = in.readByte() != 0;
+
+        long size = readVarLong(in);
+        if (size < 0 || size > maxSamples) throw new IOException("Wrong samples amount: " + size);
+        long droppedSamples = readVarLong(in);
+
+        RunSamples samples = new RunSamples(Math.max(1, (int) size));
+        int tick = 0, x = 0, y = 0, z = 0, yaw = 0, pitch = 0;
+        for (int sample = 0; sample < size; sample++) {
+            tick += readDelta(in);
+            x += readDelta(in);
+            y += readDelta(in);
+            z += readDelta(in);
+            yaw += readDelta(in);
+            pitch += readDelta(in);
+            samples.addRaw(tick, x, y, z, (short) yaw, (short) pitch, in.readByte());
+        }
+        samples.setDroppedSamples(droppedSamples);
+        return new RunRecord(levelId, playerId, startedAtMillis, completed, samples);
+    }
+
+    private void writeUniqueId(@NonNull DataOutputStream out, @NonNull UUID uniqueId) throws IOException {
+        out.writeLong(uniqueId.getMostSignificantBits());
+        out.writeLong(uniqueId.getLeastSignificantBits());
+    }
+
+    @NonNull
+    private UUID readUniqueId(@NonNull DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private int writeDelta(@NonNull DataOutputStream out, int previous, int current) throws IOException {
+        int delta = current - previous;
+        writeVarLong(out, ((delta << 1) ^ (delta >> 31)) & 0xFFFFFFFFL);
+        return current;
+    }
+
+    private int readDelta(@NonNull DataInputStream in) throws IOException {
+        int zigzag = (int) readVarLong(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private void writeVarLong(@NonNull DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private long readVarLong(@NonNull DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IOException("Varint is too long");
+    }
+}
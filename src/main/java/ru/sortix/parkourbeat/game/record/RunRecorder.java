@@ -0,0 +1,80 @@
+package ru.sortix.parkourbeat.game.record;
+
+import lombok.NonNull;
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * Records the run of one game. Samples are taken every tick from the main thread into the buffer
+ * allocated once for the run. Finished buffers are handed over to {@link RunRecordsManager}
+ */
+public class RunRecorder {
+    private final @NonNull RunRecordsManager manager;
+    private final @NonNull UUID levelId;
+    private final @NonNull Player player;
+    private final @NonNull Location location;
+    private RunSamples samples = null;
+    private long startedAtMillis;
+    private int startTick;
+
+    public RunRecorder(@NonNull RunRecordsManager manager, @NonNull UUID levelId, @NonNull Player player) {
+        this.manager = manager;
+        this.levelId = levelId;
+        this.player = player;
+        this.location = player.getLocation();
+    }
+
+    public void start(int currentTick) {
+        if (!this.manager.isEnabled()) return;
+        this.samples = new RunSamples(this.manager.getMaxSamples());
+        this.startedAtMillis = System.currentTimeMillis();
+        this.startTick = currentTick;
+        this.sample(currentTick);
+    }
+
+    /**
+     * Must be called from the main thread every tick of the run
+     */
+    public void sample(int currentTick) {
+        RunSamples samples = this.samples;
+        if (samples == null) return;
+        Location location = this.player.getLocation(this.location);
+        int flags = 0;
+        if (this.player.isSprinting()) flags |= RunSamples.FLAG_SPRINTING;
+        if (this.player.isSneaking()) flags |= RunSamples.FLAG_SNEAKING;
+        if (((LivingEntity) this.player).isOnGround()) flags |= RunSamples.FLAG_ON_GROUND;
+        samples.add(currentTick - this.startTick,
+            location.getX(), location.getY(), location.getZ(),
+            location.getYaw(), location.getPitch(),
+            flags
+        );
+    }
+
+    /**
+     * Saves the run asynchronously
+     *
+     * @param ranked False if the run must not become the fastest run of the level, e.g. a test run of the editor
+     * @return Finished record or null if recording was not started
+     */
+    @Nullable
+    public RunRecord finish(boolean completed, boolean ranked) {
+        RunSamples samples = this.samples;
+        if (samples == null) return null;
+        this.samples = null;
+        RunRecord record = new RunRecord(this.levelId, this.player.getUniqueId(),
+            this.startedAtMillis, completed, samples);
+        this.manager.saveAsync(record, ranked);
+        return record;
+    }
+
+    /**
+     * Drops the run without saving
+     */
+    public void discard() {
+        this.samples = null;
+    }
+}
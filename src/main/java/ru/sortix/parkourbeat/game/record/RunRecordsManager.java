@@ -0,0 +1,242 @@
+package ru.sortix.parkourbeat.game.record;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.configuration.ConfigurationSection;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.levels.LevelsManager;
+import ru.sortix.parkourbeat.lifecycle.PluginManager;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Writes recorded runs to the settings directory of their levels. Encoding and disk access
+ * are done by a single background thread, so finished runs don't block the main thread.
+ * <p>
+ * Status of the run is kept in the file name, so old runs are pruned without reading them.
+ * The fastest completed run of each level is also copied to a separate file, so it's the only file read for ghosts
+ */
+public class RunRecordsManager implements PluginManager {
+    private static final String RECORDS_DIRECTORY_NAME = "runs";
+    private static final String FASTEST_RUN_FILE_NAME = "fastest" + RunRecordFormat.FILE_EXTENSION;
+    private static final String COMPLETED_SUFFIX = "_c" + RunRecordFormat.FILE_EXTENSION;
+    private static final String FAILED_SUFFIX = "_f" + RunRecordFormat.FILE_EXTENSION;
+
+    private final @NonNull ParkourBeat plugin;
+    @Getter
+    private final boolean enabled;
+    /**
+     * Capacity of the ring buffer of each run. The oldest samples of longer runs are dropped
+     */
+    @Getter
+    private final int maxSamples;
+    private final int maxCompletedRunsPerPlayer;
+    private final int maxFailedRunsPerLevel;
+    private final @NonNull ExecutorService writer;
+    /**
+     * Duration of the fastest run file of each level or {@link Integer#MAX_VALUE} if there's no such file.
+     * Accessed by the writer thread only
+     */
+    private final @NonNull Map<UUID, Integer> fastestDurationTicks = new HashMap<>();
+
+    public RunRecordsManager(@NonNull ParkourBeat plugin) {
+        this.plugin = plugin;
+
+        ConfigurationSection config = plugin.getConfig().getConfigurationSection("run_recording");
+        this.enabled = config == null || config.getBoolean("enabled", true);
+        this.maxSamples = config == null ? 20 * 60 * 10 : config.getInt("max_samples", 20 * 60 * 10);
+        this.maxCompletedRunsPerPlayer = config == null ? 3 : config.getInt("max_completed_runs_per_player", 3);
+        this.maxFailedRunsPerLevel = config == null ? 20 : config.getInt("max_failed_runs_per_level", 20);
+        if (this.maxSamples < 1) {
+            throw new IllegalArgumentException("Wrong max samples amount: " + this.maxSamples);
+        }
+        if (this.maxCompletedRunsPerPlayer < 0) {
+            throw new IllegalArgumentException("Wrong max completed runs amount: " + this.maxCompletedRunsPerPlayer);
+        }
+        if (this.maxFailedRunsPerLevel < 0) {
+            throw new IllegalArgumentException("Wrong max failed runs amount: " + this.maxFailedRunsPerLevel);
+        }
+
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ParkourBeat Run Records");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @NonNull
+    public File getRecordsDirectory(@NonNull UUID levelId) {
+        File settingsDirectory = this.plugin.get(LevelsManager.class)
+            .getLevelsSettings().getLevelSettingDAO().getSettingsDirectory(levelId);
+        return new File(settingsDirectory, RECORDS_DIRECTORY_NAME);
+    }
+
+    /**
+     * Hands the run over to the writing thread. Samples of the record must not be modified anymore
+     *
+     * @param ranked False if the run must not become the fastest run of the level
+     */
+    public void saveAsync(@NonNull RunRecord record, boolean ranked) {
+        File directory = this.getRecordsDirectory(record.levelId());
+        try {
+            this.writer.execute(() -> this.save(directory, record, ranked));
+        } catch (RejectedExecutionException e) {
+            this.plugin.getLogger().warning("Unable to save run of player " + record.playerId()
+                + " on level " + record.levelId() + ": records writer is stopped");
+        }
+    }
+
+    private void save(@NonNull File directory, @NonNull RunRecord record, boolean ranked) {
+        String fileName = record.startedAtMillis() + "_" + record.playerId()
+            + (record.completed() ? COMPLETED_SUFFIX : FAILED_SUFFIX);
+        File file = new File(directory, fileName);
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Unable to create directory " + directory);
+            }
+            this.write(file, record);
+        } catch (Exception e) {
+            this.plugin.getLogger().log(Level.SEVERE, "Unable to save run record " + file, e);
+            return;
+        }
+
+        if (ranked && isGhostCandidate(record)
+            && record.getDurationTicks() < this.getFastestDurationTicks(record.levelId(), directory)) {
+            File fastestFile = new File(directory, FASTEST_RUN_FILE_NAME);
+            try {
+                this.write(fastestFile, record);
+                this.fastestDurationTicks.put(record.levelId(), record.getDurationTicks());
+            } catch (Exception e) {
+                this.plugin.getLogger().log(Level.SEVERE, "Unable to save fastest run record " + fastestFile, e);
+            }
+        }
+
+        this.prune(directory, record);
+    }
+
+    private void write(@NonNull File file, @NonNull RunRecord record) throws IOException {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                RunRecordFormat.write(out, record);
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw e;
+        }
+    }
+
+    private static boolean isGhostCandidate(@NonNull RunRecord record) {
+        return record.completed() && record.samples().getDroppedSamples() == 0;
+    }
+
+    private int getFastestDurationTicks(@NonNull UUID levelId, @NonNull File directory) {
+        Integer cached = this.fastestDurationTicks.get(levelId);
+        if (cached != null) return cached;
+        RunRecord fastest = this.loadFastestCompletedRun(directory);
+        int result = fastest == null ? Integer.MAX_VALUE : fastest.getDurationTicks();
+        this.fastestDurationTicks.put(levelId, result);
+        return result;
+    }
+
+    /**
+     * Keeps the latest completed runs of the player and the latest failed runs of the level.
+     * File names start with the run start time, so the name order is the age order
+     */
+    private void prune(@NonNull File directory, @NonNull RunRecord record) {
+        String playerCompletedSuffix = "_" + record.playerId() + COMPLETED_SUFFIX;
+        String[] names = directory.list((dir, name) -> record.completed()
+            ? name.endsWith(playerCompletedSuffix)
+            : name.endsWith(FAILED_SUFFIX));
+        int limit = record.completed() ? this.maxCompletedRunsPerPlayer : this.maxFailedRunsPerLevel;
+        if (names == null || names.length <= limit) return;
+
+        Arrays.sort(names, Comparator.comparingLong(RunRecordsManager::getStartedAtMillis));
+        for (int i = 0; i < names.length - limit; i++) {
+            File file = new File(directory, names[i]);
+            if (!file.delete()) {
+                this.plugin.getLogger().warning("Unable to delete old run record " + file);
+            }
+        }
+    }
+
+    private static long getStartedAtMillis(@NonNull String fileName) {
+        try {
+            return Long.parseLong(fileName.substring(0, fileName.indexOf('_')));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Loads the fastest completed run of the level on the records thread, so it's ordered with pending writes
+     *
+     * @return Record or null if the level was never completed
+     */
+    @NonNull
+    public CompletableFuture<RunRecord> loadFastestCompletedRunAsync(@NonNull UUID levelId) {
+        File directory = this.getRecordsDirectory(levelId);
+        try {
+            return CompletableFuture.supplyAsync(() -> this.loadFastestCompletedRun(directory), this.writer);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    @Nullable
+    private RunRecord loadFastestCompletedRun(@NonNull File directory) {
+        File file = new File(directory, FASTEST_RUN_FILE_NAME);
+        if (!file.isFile()) return null;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return RunRecordFormat.read(in, this.maxSamples);
+        } catch (Exception e) {
+            this.plugin.getLogger().log(Level.WARNING, "Unable to read run record " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Forgets cached data of the unloaded or deleted level
+     */
+    public void evictLevel(@NonNull UUID levelId) {
+        try {
+            this.writer.execute(() -> this.fastestDurationTicks.remove(levelId));
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    @Override
+    public void disable() {
+        this.writer.shutdown();
+        try {
+            if (!this.writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                this.plugin.getLogger().warning("Some run records were not saved in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ru.sortix.parkourbeat.game.record;
+
+/**
+ * Preallocated ring buffer of the run samples. Values are quantized on insertion and stored in primitive arrays,
+ * so recording doesn't allocate. When the buffer is full the oldest samples are overwritten
+ */
+public final class RunSamples {
+    /**
+     * Position units per block. Same precision as relative moves of the protocol
+     */
+    public static final int POSITION_SCALE = 4096;
+    /**
+     * Rotation units per degree
+     */
+    public static final int ROTATION_SCALE = 64;
+
+    public static final int FLAG_SPRINTING = 1;
+    public static final int FLAG_SNEAKING = 1 << 1;
+    public static final int FLAG_ON_GROUND = 1 << 2;
+
+    private final int[] ticks;
+    private final int[] x, y, z;
+    private final short[] yaw, pitch;
+    private final byte[] flags;
+    private int head = 0;
+    private int size = 0;
+    private long droppedSamples = 0;
+
+    public RunSamples(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Wrong capacity: " + capacity);
+        this.ticks = new int[capacity];
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.z = new int[capacity];
+        this.yaw = new short[capacity];
+        this.pitch = new short[capacity];
+        this.flags = new byte[capacity];
+    }
+
+    public void add(int tick, double x, double y, double z, float yaw, float pitch, int flags) {
+        this.addRaw(tick,
+            (int) Math.round(x * POSITION_SCALE),
+            (int) Math.round(y * POSITION_SCALE),
+            (int) Math.round(z * POSITION_SCALE),
+            (short) Math.round(normalizeYaw(yaw) * ROTATION_SCALE),
+            (short) Math.round(pitch * ROTATION_SCALE),
+            (byte) flags
+        );
+    }
+
+    void addRaw(int tick, int x, int y, int z, short yaw, short pitch, byte flags) {
+        int capacity = this.ticks.length;
+        int index = this.head + this.size;
+        if (index >= capacity) index -= capacity;
+        this.ticks[index] = tick;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.z[index] = z;
+        this.yaw[index] = yaw;
+        this.pitch[index] = pitch;
+        this.flags[index] = flags;
+        if (this.size < capacity) {
+            this.size++;
+        } else {
+            this.head = this.head + 1 == capacity ? 0 : this.head + 1;
+            this.droppedSamples++;
+        }
+    }
+
+    private static float normalizeYaw(float yaw) {
+        yaw %= 360;
+        return yaw < 0 ? yaw + 360 : yaw;
+    }
+
+    public void clear() {
+        this.head = 0;
+        this.size = 0;
+        this.droppedSamples = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getCapacity() {
+        return this.ticks.length;
+    }
+
+    /**
+     * @return Amount of the oldest samples overwritten because the buffer was full
+     */
+    public long getDroppedSamples() {
+        return this.droppedSamples;
+    }
+
+    void setDroppedSamples(long droppedSamples) {
+        this.droppedSamples = droppedSamples;
+    }
+
+    private int index(int sample) {
+        if (sample < 0 || sample >= this.size) {
+            throw new IndexOutOfBoundsException("Sample " + sample + " of " + this.size);
+        }
+        int index = this.head + sample;
+        return index >= this.ticks.length ? index - this.ticks.length : index;
+    }
+
+    /**
+     * @param sample Index of the sample starting from the oldest one
+     */
+    public int getTick(int sample) {
+        return this.ticks[this.index(sample)];
+    }
+
+    public double getX(int sample) {
+        return (double) this.x[this.index(sample)] / POSITION_SCALE;
+    }
+
+    public double getY(int sample) {
+        return (double) this.y[this.index(sample)] / POSITION_SCALE;
+    }
+
+    public double getZ(int sample) {
+        return (double) this.z[this.index(sample)] / POSITION_SCALE;
+    }
+
+    public float getYaw(int sample) {
+        return (float) this.yaw[this.index(sample)] / ROTATION_SCALE;
+    }
+
+    public float getPitch(int sample) {
+        return (float) this.pitch[this.index(sample)] / ROTATION_SCALE;
+    }
+
+    public int getFlags(int sample) {
+        return this.flags[this.index(sample)];
+    }
+
+    int getRawX(int sample) {
+        return this.x[this.index(sample)];
+    }
+
+    int getRawY(int sample) {
+        return this.y[this.index(sample)];
+    }
+
+    int getRawZ(int sample) {
+        return this.z[this.index(sample)];
+    }
+
+    short getRawYaw(int sample) {
+        return this.yaw[this.index(sample)];
+    }
+
+    short getRawPitch(int sample) {
+        return this.pitch[this.index(sample)];
+    }
+}
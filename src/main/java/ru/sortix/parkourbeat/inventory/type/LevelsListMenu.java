@@ -4,6 +4,7 @@ import lombok.NonNull;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.HoverEvent;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -12,6 +13,9 @@ import ru.sortix.parkourbeat.activity.ActivityManager;
 import ru.sortix.parkourbeat.activity.UserActivity;
 import ru.sortix.parkourbeat.activity.type.EditActivity;
 import ru.sortix.parkourbeat.activity.type.PlayActivity;
+import ru.sortix.parkourbeat.game.leaderboard.LeaderboardEntry;
+import ru.sortix.parkourbeat.game.leaderboard.LeaderboardsManager;
+import ru.sortix.parkourbeat.game.leaderboard.LevelLeaderboard;
 import ru.sortix.parkourbeat.inventory.PaginatedMenu;
 import ru.sortix.parkourbeat.inventory.RegularItems;
 import ru.sortix.parkourbeat.inventory.event.ClickEvent;
@@ -166,6 +170,19 @@ public class LevelsListMenu extends PaginatedMenu<ParkourBeat, GameSettings> {
                 + (gameSettings.getMusicTrack() == null
                 ? "отсутствует"
                 : gameSettings.getMusicTrack().getName()), NamedTextColor.YELLOW));
+            LevelLeaderboard leaderboard =
+                this.plugin.get(LeaderboardsManager.class).getLeaderboard(gameSettings.getUniqueId());
+            LeaderboardEntry best = leaderboard.getBest();
+            if (best != null) {
+                String bestPlayerName = Bukkit.getOfflinePlayer(best.playerId()).getName();
+                lore.add(Component.text("Рекорд: " + best.getFormattedDuration()
+                    + " (" + (bestPlayerName == null ? "неизвестный игрок" : bestPlayerName) + ")", NamedTextColor.AQUA));
+            }
+            LeaderboardEntry viewerBest = leaderboard.getPlayerBest(this.viewer.getUniqueId());
+            if (viewerBest != null) {
+                lore.add(Component.text("Ваш рекорд: " + viewerBest.getFormattedDuration()
+                    + ", точность " + viewerBest.getFormattedAccuracy(), NamedTextColor.AQUA));
+            }
             lore.add(Component.text("ЛКМ, чтобы играть", NamedTextColor.GOLD));
             lore.add(Component.text("ПКМ, чтобы наблюдать", NamedTextColor.GOLD));
             if (gameSettings.isOwner(this.viewer, true, false)) {
@@ -98,6 +98,8 @@ public class EditTrackPointsItem extends EditorItem {
 
         waypoints.add(index, newWaypoint);
         updateBorders(index, level);
+        level.getLevelSettings().invalidateMovementSegments();
+        level.getLevelSettings().getParticleController().onWaypointInserted(waypoints, index);
 
         player.sendActionBar(Component.text("Вы успешно добавили точку", NamedTextColor.GREEN));
         return true;
@@ -119,6 +121,8 @@ public class EditTrackPointsItem extends EditorItem {
                 }
                 waypoints.remove(i);
                 updateBorders(i, level);
+                level.getLevelSettings().invalidateMovementSegments();
+                level.getLevelSettings().getParticleController().onWaypointRemoved(waypoints, i);
 
                 player.sendActionBar(Component.text("Вы успешно удалили точку", NamedTextColor.GREEN));
                 return true;
@@ -132,9 +136,10 @@ public class EditTrackPointsItem extends EditorItem {
         @NonNull List<Waypoint> waypoints,
         @NonNull Player player,
         @NonNull EditActivity activity) {
-        Waypoint startSegment = getLookingSegment(player, waypoints);
+        int startSegmentIndex = getLookingSegmentIndex(player, waypoints);
 
-        if (startSegment == null) return false;
+        if (startSegmentIndex < 0) return false;
+        Waypoint startSegment = waypoints.get(startSegmentIndex);
 
         if (increase) {
             activity.setCurrentHeight(
@@ -143,6 +148,8 @@ public class EditTrackPointsItem extends EditorItem {
             activity.setCurrentHeight(Math.max(0, startSegment.getHeight() - HEIGHT_CHANGE_VALUE));
         }
         startSegment.setHeight(activity.getCurrentHeight());
+        activity.getLevel().getLevelSettings().getParticleController()
+            .onWaypointChanged(waypoints, startSegmentIndex);
         return true;
     }
 
@@ -153,7 +160,7 @@ public class EditTrackPointsItem extends EditorItem {
         }
     }
 
-    private static Waypoint getLookingSegment(@NonNull Player player, @NonNull List<Waypoint> waypoints) {
+    private static int getLookingSegmentIndex(@NonNull Player player, @NonNull List<Waypoint> waypoints) {
 
         for (int i = 0; i < waypoints.size() - 1; i++) {
             Waypoint startSegment = waypoints.get(i);
@@ -163,10 +170,10 @@ public class EditTrackPointsItem extends EditorItem {
                 player,
                 startSegment.getLocation().toVector(),
                 endSegment.getLocation().toVector())) {
-                return startSegment;
+                return i;
             }
         }
-        return null;
+        return -1;
     }
 
     public static boolean isLookingAt(@NonNull Player player, @NonNull Vector block1, @NonNull Vector block2) {
@@ -223,15 +230,12 @@ public class EditTrackPointsItem extends EditorItem {
             }
         }
 
-        boolean isChanged = false;
         WorldSettings worldSettings = level.getLevelSettings().getWorldSettings();
         List<Waypoint> waypoints = worldSettings.getWaypoints();
 
         if (player.isSneaking()) {
             // Изменение высоты сегментов
-            if (adjustWaypointHeight(left, waypoints, player, activity)) {
-                isChanged = true;
-            }
+            adjustWaypointHeight(left, waypoints, player, activity);
         } else {
             // Добавление и удаление точек
             Location interactionPoint = getInteractionPoint(event);
@@ -245,25 +249,16 @@ public class EditTrackPointsItem extends EditorItem {
                 // Обработка добавления новой точки
                 Waypoint newWaypoint =
                     new Waypoint(interactionPoint, activity.getCurrentHeight(), activity.getCurrentColor());
-                if (insertWaypointInOrder(waypoints, newWaypoint, directionChecker, player, level)) {
-                    isChanged = true;
-                }
+                insertWaypointInOrder(waypoints, newWaypoint, directionChecker, player, level);
             } else {
                 // Обработка удаления точки
                 double particleCoordinate = directionChecker.getCoordinate(interactionPoint);
                 int nearestWaypointIndex = findNearestWaypointIndex(waypoints, particleCoordinate, directionChecker);
 
                 if (nearestWaypointIndex != -1) {
-                    if (removeWaypointIfCloseEnough(waypoints, nearestWaypointIndex, interactionPoint, player, level)) {
-                        isChanged = true;
-                    }
+                    removeWaypointIfCloseEnough(waypoints, nearestWaypointIndex, interactionPoint, player, level);
                 }
             }
         }
-
-        // Обновляем частицы если были изменения
-        if (isChanged) {
-            level.getLevelSettings().updateParticleLocations();
-        }
     }
 }
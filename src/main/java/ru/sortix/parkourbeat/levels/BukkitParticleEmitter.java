@@ -0,0 +1,46 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.NonNull;
+import org.bukkit.Color;
+import org.bukkit.entity.Player;
+import ru.sortix.parkourbeat.utils.java.ParticleUtils;
+
+class BukkitParticleEmitter implements ParticleEmitter {
+    @Override
+    @NonNull
+    public ProtocolBucket getProtocolBucket(@NonNull Player player) {
+        // Client version is unknown without ProtocolLib, so use encoding supported by all clients
+        return ProtocolBucket.LEGACY;
+    }
+
+    @Override
+    public void invalidate() {
+    }
+
+    @Override
+    public int displaySection(@NonNull ProtocolBucket protocolBucket,
+                              @NonNull Player player,
+                              @NonNull Color color,
+                              float size,
+                              @NonNull ParticlePath path,
+                              int section,
+                              int step,
+                              int limit,
+                              @NonNull ParticleUtils.PointFilter filter
+    ) {
+        int start = path.getSectionStart(section);
+        if (start < 0) return 0;
+        return ParticleUtils.displayRedstoneParticles(
+            protocolBucket.isLegacy(),
+            player,
+            color,
+            size,
+            path.getCoordinates(),
+            start,
+            path.getSectionEnd(section),
+            step,
+            limit,
+            filter
+        );
+    }
+}
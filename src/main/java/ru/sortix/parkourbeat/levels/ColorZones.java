@@ -0,0 +1,97 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.NonNull;
+import org.bukkit.Color;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sorted index of the path color zones. Zone starts are stored as progress along the level direction
+ * (coordinate for positive directions and negated coordinate for negative ones), so they are always ascending
+ */
+final class ColorZones {
+    static final ColorZones EMPTY = new ColorZones(new double[0], new Color[0]);
+
+    /**
+     * Max zones to step over sequentially before falling back to binary search
+     */
+    private static final int MAX_LINEAR_STEPS = 4;
+
+    private final double[] starts;
+    private final Color[] colors;
+
+    private ColorZones(double[] starts, Color[] colors) {
+        this.starts = starts;
+        this.colors = colors;
+    }
+
+    boolean isEmpty() {
+        return this.colors.length == 0;
+    }
+
+    @NonNull
+    Color getColor(int zone) {
+        return this.colors[zone];
+    }
+
+    /**
+     * Finds zone of the position starting from the previously found one. Runners move forward only,
+     * so usually the cached zone is still valid or the next one is reached
+     *
+     * @param cachedZone Previously found zone or -1
+     * @param progress   Position along the level direction
+     * @return Zone index or -1 if there are no zones
+     */
+    int findZone(int cachedZone, double progress) {
+        if (this.colors.length == 0) return -1;
+        if (cachedZone < 0 || cachedZone >= this.colors.length
+            || (cachedZone > 0 && progress <= this.starts[cachedZone])) {
+            return this.findZone(progress);
+        }
+        int zone = cachedZone;
+        for (int step = 0; zone + 1 < this.starts.length && progress > this.starts[zone + 1]; step++) {
+            if (step == MAX_LINEAR_STEPS) return this.findZone(progress);
+            zone++;
+        }
+        return zone;
+    }
+
+    /**
+     * @return Last zone which start is strictly behind the position. The first zone is used for any position
+     */
+    private int findZone(double progress) {
+        int low = 1;
+        int high = this.starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (progress > this.starts[mid]) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    static final class Builder {
+        private double[] starts = new double[8];
+        private Color[] colors = new Color[8];
+        private int size = 0;
+
+        void add(double progress, @NonNull Color color) {
+            if (this.size == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.size * 2);
+                this.colors = Arrays.copyOf(this.colors, this.size * 2);
+            }
+            this.starts[this.size] = progress;
+            this.colors[this.size] = color;
+            this.size++;
+        }
+
+        @NonNull
+        ColorZones build() {
+            if (this.size == 0) return EMPTY;
+            return new ColorZones(Arrays.copyOf(this.starts, this.size), Arrays.copyOf(this.colors, this.size));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Samples jump arcs of the particle path with evenly spaced points. The curve is evaluated on primitives only,
+ * its length is measured with adaptive subdivision, so flat arcs need just a few nodes of the arc-length table.
+ * Arcs almost as long as their chord are emitted as straight lines with the spacing of the chord.
+ * Buffers are reused between calls, so the instance is not thread safe
+ */
+final class CubicBezierSampler {
+    /**
+     * Max difference between the length of the curve piece and its chord to treat the piece as flat
+     */
+    private static final double FLATNESS_TOLERANCE = 0.001;
+    private static final int MIN_SUBDIVISION_DEPTH = 2;
+    private static final int MAX_SUBDIVISION_DEPTH = 12;
+
+    private double x0, y0, z0;
+    private double x1, y1, z1;
+    private double x2, y2, z2;
+    private double x3, y3, z3;
+
+    // Result of the last evaluation
+    private double pointX, pointY, pointZ;
+
+    // Arc-length table: curve parameter and distance along the curve of each node
+    private double[] nodeParams = new double[64];
+    private double[] nodeLengths = new double[64];
+    private int nodesAmount = 0;
+
+    /**
+     * Adds points of the arc between two points. Both control points are located
+     * at the middle of the chord, raised by the arc height
+     *
+     * @param spacing Distance between neighbour points along the arc
+     */
+    void sampleArc(@NonNull ParticlePath.Builder path,
+                   double startX, double startY, double startZ,
+                   double endX, double endY, double endZ,
+                   double height,
+                   double spacing
+    ) {
+        double middleX = (startX + endX) / 2;
+        double middleY = (startY + endY) / 2 + height;
+        double middleZ = (startZ + endZ) / 2;
+        this.x0 = startX;
+        this.y0 = startY;
+        this.z0 = startZ;
+        this.x1 = this.x2 = middleX;
+        this.y1 = this.y2 = middleY;
+        this.z1 = this.z2 = middleZ;
+        this.x3 = endX;
+        this.y3 = endY;
+        this.z3 = endZ;
+
+        this.buildArcLengthTable();
+
+        double totalLength = this.nodeLengths[this.nodesAmount - 1];
+        double chord = distance(startX, startY, startZ, endX, endY, endZ);
+        if (totalLength - chord <= FLATNESS_TOLERANCE) {
+            int segments = Math.max(1, (int) Math.ceil(chord / spacing));
+            for (int i = 0; i <= segments; i++) {
+                double ratio = i / (double) segments;
+                path.add(startX + (endX - startX) * ratio,
+                    startY + (endY - startY) * ratio,
+                    startZ + (endZ - startZ) * ratio);
+            }
+            return;
+        }
+
+        int segments = Math.max(1, (int) Math.ceil(totalLength / spacing));
+
+        int node = 1;
+        for (int i = 0; i <= segments; i++) {
+            double targetLength = totalLength * i / segments;
+            while (node < this.nodesAmount - 1 && this.nodeLengths[node] < targetLength) {
+                node++;
+            }
+            double fromLength = this.nodeLengths[node - 1];
+            double toLength = this.nodeLengths[node];
+            double t;
+            if (toLength > fromLength) {
+                double ratio = (targetLength - fromLength) / (toLength - fromLength);
+                t = this.nodeParams[node - 1] + (this.nodeParams[node] - this.nodeParams[node - 1]) * ratio;
+            } else {
+                t = this.nodeParams[node];
+            }
+            this.evaluate(t);
+            path.add(this.pointX, this.pointY, this.pointZ);
+        }
+    }
+
+    private void buildArcLengthTable() {
+        this.nodesAmount = 0;
+        this.addNode(0, 0);
+        this.subdivide(0, this.x0, this.y0, this.z0, 1, this.x3, this.y3, this.z3, 0);
+    }
+
+    private void subdivide(double fromT, double fromX, double fromY, double fromZ,
+                           double toT, double toX, double toY, double toZ,
+                           int depth
+    ) {
+        double middleT = (fromT + toT) / 2;
+        this.evaluate(middleT);
+        double middleX = this.pointX;
+        double middleY = this.pointY;
+        double middleZ = this.pointZ;
+
+        double firstHalf = distance(fromX, fromY, fromZ, middleX, middleY, middleZ);
+        double secondHalf = distance(middleX, middleY, middleZ, toX, toY, toZ);
+        double chord = distance(fromX, fromY, fromZ, toX, toY, toZ);
+
+        if (depth >= MAX_SUBDIVISION_DEPTH
+            || (depth >= MIN_SUBDIVISION_DEPTH && firstHalf + secondHalf - chord <= FLATNESS_TOLERANCE)) {
+            double passedLength = this.nodeLengths[this.nodesAmount - 1];
+            this.addNode(middleT, passedLength + firstHalf);
+            this.addNode(toT, passedLength + firstHalf + secondHalf);
+            return;
+        }
+
+        this.subdivide(fromT, fromX, fromY, fromZ, middleT, middleX, middleY, middleZ, depth + 1);
+        this.subdivide(middleT, middleX, middleY, middleZ, toT, toX, toY, toZ, depth + 1);
+    }
+
+    private void addNode(double t, double length) {
+        if (this.nodesAmount == this.nodeParams.length) {
+            this.nodeParams = Arrays.copyOf(this.nodeParams, this.nodesAmount * 2);
+            this.nodeLengths = Arrays.copyOf(this.nodeLengths, this.nodesAmount * 2);
+        }
+        this.nodeParams[this.nodesAmount] = t;
+        this.nodeLengths[this.nodesAmount] = length;
+        this.nodesAmount++;
+    }
+
+    private void evaluate(double t) {
+        double u = 1 - t;
+        double b0 = u * u * u;
+        double b1 = 3 * u * u * t;
+        double b2 = 3 * u * t * t;
+        double b3 = t * t * t;
+        this.pointX = b0 * this.x0 + b1 * this.x1 + b2 * this.x2 + b3 * this.x3;
+        this.pointY = b0 * this.y0 + b1 * this.y1 + b2 * this.y2 + b3 * this.y3;
+        this.pointZ = b0 * this.z0 + b1 * this.z1 + b2 * this.z2 + b3 * this.z3;
+    }
+
+    private static double distance(double x1, double y1, double z1, double x2, double y2, double z2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double dz = z2 - z1;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
@@ -1,63 +1,109 @@
 package ru.sortix.parkourbeat.levels;
 
+import lombok.Getter;
 import lombok.NonNull;
 import org.bukkit.Location;
 import org.bukkit.util.Vector;
 
-public record DirectionChecker(@NonNull DirectionChecker.Direction direction) {
+/**
+ * Checks positions along the direction of the level. Each direction is precomputed into the weights
+ * of the horizontal axes, so every check is a couple of multiplications without branches or allocations.
+ * One final class instead of a class per direction keeps call sites monomorphic
+ * when levels of different directions are played at once
+ * <p>
+ * Coordinate is the value of the direction axis. Progress is the coordinate with the sign of the direction,
+ * so it always ascends towards the finish
+ */
+public final class DirectionChecker {
+    private static final DirectionChecker[] CHECKERS;
+
+    static {
+        Direction[] directions = Direction.values();
+        CHECKERS = new DirectionChecker[directions.length];
+        for (Direction direction : directions) {
+            CHECKERS[direction.ordinal()] = new DirectionChecker(direction);
+        }
+    }
+
+    @Getter
+    private final @NonNull Direction direction;
+    private final int coordinateOffset;
+    private final boolean negative;
+    private final double sign;
+    private final double coordinateX, coordinateZ;
+    private final double progressX, progressZ;
+
+    private DirectionChecker(@NonNull Direction direction) {
+        this.direction = direction;
+        boolean alongX = direction == Direction.POSITIVE_X || direction == Direction.NEGATIVE_X;
+        this.coordinateOffset = alongX ? 0 : 2;
+        this.negative = direction == Direction.NEGATIVE_X || direction == Direction.NEGATIVE_Z;
+        this.sign = this.negative ? -1 : 1;
+        this.coordinateX = alongX ? 1 : 0;
+        this.coordinateZ = alongX ? 0 : 1;
+        this.progressX = this.coordinateX * this.sign;
+        this.progressZ = this.coordinateZ * this.sign;
+    }
+
+    @NonNull
+    public static DirectionChecker of(@NonNull Direction direction) {
+        return CHECKERS[direction.ordinal()];
+    }
+
     public boolean isCorrectDirection(@NonNull Location behind, @NonNull Location to) {
-        return switch (direction) {
-            case NEGATIVE_X -> behind.getX() >= to.getX();
-            case POSITIVE_X -> behind.getX() <= to.getX();
-            case NEGATIVE_Z -> behind.getZ() >= to.getZ();
-            case POSITIVE_Z -> behind.getZ() <= to.getZ();
-        };
+        return this.getProgress(behind) <= this.getProgress(to);
+    }
+
+    public boolean isCorrectDirection(double behindX, double behindZ, double toX, double toZ) {
+        return this.getProgress(behindX, behindZ) <= this.getProgress(toX, toZ);
     }
 
     public boolean isAheadDirection(@NonNull Location location, double coordinate) {
-        return switch (direction) {
-            case NEGATIVE_X -> location.getX() < coordinate;
-            case POSITIVE_X -> location.getX() > coordinate;
-            case NEGATIVE_Z -> location.getZ() < coordinate;
-            case POSITIVE_Z -> location.getZ() > coordinate;
-        };
+        return this.getProgress(location) > this.toProgress(coordinate);
     }
 
     public void add(@NonNull Vector vector, double value) {
-        switch (direction) {
-            case NEGATIVE_X:
-                vector.setX(vector.getX() - value);
-                break;
-            case POSITIVE_X:
-                vector.setX(vector.getX() + value);
-                break;
-            case NEGATIVE_Z:
-                vector.setZ(vector.getZ() - value);
-                break;
-            case POSITIVE_Z:
-                vector.setZ(vector.getZ() + value);
-                break;
-            default:
-                throw new IllegalArgumentException("Invalid direction: " + this.direction);
-        }
+        vector.setX(vector.getX() + value * this.progressX);
+        vector.setZ(vector.getZ() + value * this.progressZ);
     }
 
     public double getCoordinate(@NonNull Location location) {
-        return getCoordinate(location.toVector());
+        return this.getCoordinate(location.getX(), location.getZ());
     }
 
     public double getCoordinate(@NonNull Vector vector) {
-        return switch (this.direction) {
-            case NEGATIVE_X, POSITIVE_X -> vector.getX();
-            case NEGATIVE_Z, POSITIVE_Z -> vector.getZ();
-        };
+        return this.getCoordinate(vector.getX(), vector.getZ());
+    }
+
+    public double getCoordinate(double x, double z) {
+        return x * this.coordinateX + z * this.coordinateZ;
+    }
+
+    public double getProgress(@NonNull Location location) {
+        return this.getProgress(location.getX(), location.getZ());
+    }
+
+    public double getProgress(double x, double z) {
+        return x * this.progressX + z * this.progressZ;
+    }
+
+    public double toProgress(double coordinate) {
+        return coordinate * this.sign;
+    }
+
+    public double toCoordinate(double progress) {
+        return progress * this.sign;
+    }
+
+    /**
+     * @return Offset of the direction coordinate inside packed x, y, z triple
+     */
+    public int getCoordinateOffset() {
+        return this.coordinateOffset;
     }
 
     public boolean isNegative() {
-        return switch (this.direction) {
-            case NEGATIVE_X, NEGATIVE_Z -> true;
-            case POSITIVE_X, POSITIVE_Z -> false;
-        };
+        return this.negative;
     }
 
     public enum Direction {
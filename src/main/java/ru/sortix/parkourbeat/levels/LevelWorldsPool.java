@@ -0,0 +1,207 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.scheduler.BukkitTask;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.levels.dao.LevelSettingDAO;
+import ru.sortix.parkourbeat.utils.StringUtils;
+import ru.sortix.parkourbeat.world.WorldsManager;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Blank worlds of the normal environment created in advance, so new levels don't wait for the world creation.
+ * Bukkit worlds can't be renamed, so each pooled world is created with the unique id of its future level.
+ * The pool is refilled one world at a time while the server MSPT is low.
+ * <p>
+ * Unique id of each pooled world is reserved by a marker file before the world is created,
+ * so worlds left by a crash or a failed creation are deleted on startup
+ */
+public class LevelWorldsPool {
+    private static final String MARKERS_DIRECTORY_NAME = "pooled_level_worlds";
+    private static final long REFILL_CHECK_PERIOD_TICKS = 20;
+
+    private final @NonNull ParkourBeat plugin;
+    private final @NonNull LevelSettingDAO levelSettingDAO;
+    private final @NonNull Supplier<UUID> levelIdSupplier;
+    private final @NonNull BiFunction<UUID, World.Environment, CompletableFuture<World>> worldCreator;
+    private final @NonNull File markersDirectory;
+    private final @NonNull Executor syncExecutor;
+    @Getter
+    private final int targetSize;
+    @Getter
+    private final double maxRefillMspt;
+    private final @NonNull Deque<PooledWorld> readyWorlds = new ArrayDeque<>();
+    private final @NonNull BukkitTask refillTask;
+    private boolean refilling = false;
+    private boolean disabled = false;
+
+    @Getter
+    private long hits = 0;
+    @Getter
+    private long misses = 0;
+    @Getter
+    private long refills = 0;
+    @Getter
+    private long failedRefills = 0;
+    private long totalRefillNanos = 0;
+    @Getter
+    private long lastRefillNanos = 0;
+
+    /**
+     * @param levelIdSupplier Reserves the unique id of the new level
+     * @param worldCreator    Creates the blank world of the level
+     */
+    LevelWorldsPool(@NonNull ParkourBeat plugin,
+                    @NonNull LevelSettingDAO levelSettingDAO,
+                    @NonNull Supplier<UUID> levelIdSupplier,
+                    @NonNull BiFunction<UUID, World.Environment, CompletableFuture<World>> worldCreator) {
+        this.plugin = plugin;
+        this.levelSettingDAO = levelSettingDAO;
+        this.levelIdSupplier = levelIdSupplier;
+        this.worldCreator = worldCreator;
+        this.markersDirectory = new File(plugin.getDataFolder(), MARKERS_DIRECTORY_NAME);
+        this.syncExecutor = plugin.get(WorldsManager.class).getSyncExecutor();
+
+        ConfigurationSection config = plugin.getConfig().getConfigurationSection("level_worlds_pool");
+        this.targetSize = config == null ? 2 : config.getInt("size", 2);
+        this.maxRefillMspt = config == null ? 40 : config.getDouble("max_refill_mspt", 40);
+        if (this.targetSize < 0) {
+            throw new IllegalArgumentException("Wrong level worlds pool size: " + this.targetSize);
+        }
+
+        this.deleteAbandonedWorlds();
+        this.refillTask = plugin.getServer().getScheduler().runTaskTimer(
+            plugin, this::refillIfIdle, REFILL_CHECK_PERIOD_TICKS, REFILL_CHECK_PERIOD_TICKS);
+    }
+
+    private void deleteAbandonedWorlds() {
+        File[] markers = this.markersDirectory.listFiles();
+        if (markers == null) return;
+        int deleted = 0;
+        for (File marker : markers) {
+            UUID levelId = StringUtils.parseUUID(marker.getName());
+            if (levelId == null) continue;
+            this.levelSettingDAO.deleteLevelWorldAndSettings(levelId);
+            this.deleteMarker(levelId);
+            deleted++;
+        }
+        if (deleted > 0) {
+            this.plugin.getLogger().info("Deleted " + deleted + " pooled level worlds left from the previous run");
+        }
+    }
+
+    /**
+     * @return World with reserved level id or null if the pool is empty
+     */
+    @Nullable
+    public PooledWorld claim(@NonNull World.Environment environment) {
+        if (environment != World.Environment.NORMAL) return null;
+        PooledWorld pooledWorld = this.readyWorlds.pollFirst();
+        if (pooledWorld == null) {
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        this.deleteMarker(pooledWorld.levelId());
+        return pooledWorld;
+    }
+
+    private void refillIfIdle() {
+        if (this.refilling || this.disabled || this.readyWorlds.size() >= this.targetSize) return;
+        if (this.plugin.getServer().getAverageTickTime() > this.maxRefillMspt) return;
+
+        UUID levelId = this.levelIdSupplier.get();
+        try {
+            if (!this.markersDirectory.isDirectory() && !this.markersDirectory.mkdirs()) {
+                throw new IOException("Unable to create directory " + this.markersDirectory);
+            }
+            if (!this.getMarkerFile(levelId).createNewFile()) {
+                throw new IOException("Marker file already exists");
+            }
+        } catch (IOException e) {
+            this.failedRefills++;
+            this.plugin.getLogger().log(java.util.logging.Level.WARNING,
+                "Unable to reserve pooled world " + levelId, e);
+            return;
+        }
+
+        this.refilling = true;
+        long startedAtNanos = System.nanoTime();
+        this.worldCreator.apply(levelId, World.Environment.NORMAL).whenCompleteAsync((world, error) -> {
+            this.refilling = false;
+            if (world == null) {
+                // Partially created world is deleted on the next startup by its marker
+                this.failedRefills++;
+                if (error != null) {
+                    this.plugin.getLogger().log(java.util.logging.Level.WARNING,
+                        "Unable to create pooled world " + levelId, error);
+                }
+                return;
+            }
+            PooledWorld pooledWorld = new PooledWorld(levelId, world);
+            if (this.disabled) {
+                this.discard(pooledWorld);
+                return;
+            }
+            this.readyWorlds.addLast(pooledWorld);
+            this.refills++;
+            this.lastRefillNanos = System.nanoTime() - startedAtNanos;
+            this.totalRefillNanos += this.lastRefillNanos;
+        }, this.syncExecutor);
+    }
+
+    @NonNull
+    private File getMarkerFile(@NonNull UUID levelId) {
+        return new File(this.markersDirectory, levelId.toString());
+    }
+
+    private void deleteMarker(@NonNull UUID levelId) {
+        File marker = this.getMarkerFile(levelId);
+        if (!marker.delete()) {
+            this.plugin.getLogger().warning("Unable to delete marker of pooled world " + marker.getAbsolutePath());
+        }
+    }
+
+    public int getReadyWorldsAmount() {
+        return this.readyWorlds.size();
+    }
+
+    public double getMeanRefillMillis() {
+        return this.refills == 0 ? 0 : this.totalRefillNanos / 1_000_000D / this.refills;
+    }
+
+    private void discard(@NonNull PooledWorld pooledWorld) {
+        if (!this.plugin.getServer().unloadWorld(pooledWorld.world(), false)) {
+            // Deleted on the next startup
+            this.plugin.getLogger().warning("Unable to unload pooled world " + pooledWorld.world().getName());
+            return;
+        }
+        this.levelSettingDAO.deleteLevelWorldAndSettings(pooledWorld.levelId());
+        this.deleteMarker(pooledWorld.levelId());
+    }
+
+    void disable() {
+        this.disabled = true;
+        this.refillTask.cancel();
+        PooledWorld pooledWorld;
+        while ((pooledWorld = this.readyWorlds.pollFirst()) != null) {
+            this.discard(pooledWorld);
+        }
+    }
+
+    public record PooledWorld(@NonNull UUID levelId, @NonNull World world) {
+    }
+}
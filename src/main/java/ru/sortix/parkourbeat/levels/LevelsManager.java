@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import lombok.Getter;
 import lombok.NonNull;
 import net.kyori.adventure.text.Component;
+import org.bukkit.Chunk;
 import org.bukkit.GameRule;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -11,20 +12,24 @@ import org.bukkit.WorldCreator;
 import org.bukkit.boss.DragonBattle;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.EnderDragon;
-import org.bukkit.scheduler.BukkitTask;
 import ru.sortix.parkourbeat.ParkourBeat;
 import ru.sortix.parkourbeat.data.Settings;
+import ru.sortix.parkourbeat.game.ghost.GhostsManager;
+import ru.sortix.parkourbeat.game.record.RunRecordsManager;
 import ru.sortix.parkourbeat.inventory.type.CreateLevelMenu;
 import ru.sortix.parkourbeat.levels.dao.LevelSettingDAO;
 import ru.sortix.parkourbeat.levels.dao.files.FileLevelSettingDAO;
+import ru.sortix.parkourbeat.levels.dao.slime.SlimeLevelsStorage;
 import ru.sortix.parkourbeat.levels.settings.GameSettings;
 import ru.sortix.parkourbeat.levels.settings.LevelSettings;
 import ru.sortix.parkourbeat.lifecycle.PluginManager;
 import ru.sortix.parkourbeat.utils.StringUtils;
+import ru.sortix.parkourbeat.world.WorldTemplate;
 import ru.sortix.parkourbeat.world.WorldsManager;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -35,6 +40,10 @@ public class LevelsManager implements PluginManager {
 
     private final WorldsManager worldsManager;
     private final File defaultLevelDirectory;
+    /**
+     * Null if the slime storage is used, it keeps its own template
+     */
+    private final @Nullable WorldTemplate defaultLevelTemplate;
 
     @Getter
     private final LevelSettingsManager levelsSettings;
@@ -42,8 +51,14 @@ public class LevelsManager implements PluginManager {
     private final AvailableLevelsCollection availableLevels;
     private final Map<UUID, Level> loadedLevelsById = new HashMap<>();
     private final Map<World, Level> loadedLevelsByWorld = new HashMap<>();
-    private final Set<ParticleController> particleControllers = new HashSet<>();
-    private final BukkitTask particlesRenderingTask;
+    /**
+     * Levels converted to the slime format right now. They can't be loaded or deleted until the conversion ends
+     */
+    private final Set<UUID> migratingLevels = new HashSet<>();
+    @Getter
+    private final ParticleRenderingPipeline particleRenderingPipeline;
+    @Getter
+    private final LevelWorldsPool worldsPool;
     private int nextLevelNumber = 1;
 
     public LevelsManager(@NonNull ParkourBeat plugin) {
@@ -55,14 +70,33 @@ public class LevelsManager implements PluginManager {
                 "Default level directory not found: " + this.defaultLevelDirectory.getAbsolutePath());
         }
         this.levelsSettings = new LevelSettingsManager(new FileLevelSettingDAO(this));
+        this.defaultLevelTemplate = this.levelsSettings.getLevelSettingDAO().getSlimeStorage() == null
+            ? this.packDefaultLevelTemplate()
+            : null;
         this.availableLevels = new AvailableLevelsCollection(this.plugin.getLogger());
+        // Deletes pooled worlds left from the previous run before they are taken for the broken levels
+        this.worldsPool = new LevelWorldsPool(
+            plugin, this.levelsSettings.getLevelSettingDAO(), this::getNextLevelId, this::createLevelWorld);
         this.loadAvailableLevelNames();
 
-        this.particlesRenderingTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> {
-            for (ParticleController controller : this.particleControllers) {
-                controller.tickParticles();
-            }
-        }, 0, 5);
+        this.particleRenderingPipeline = new ParticleRenderingPipeline(plugin, ParticleRenderPolicy.load(
+            plugin.getConfig().getConfigurationSection("particles_rendering")));
+    }
+
+    @NonNull
+    private WorldTemplate packDefaultLevelTemplate() {
+        long startedAtNanos = System.nanoTime();
+        WorldTemplate template;
+        try {
+            template = WorldTemplate.pack(this.defaultLevelDirectory.toPath());
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                "Unable to pack default level directory " + this.defaultLevelDirectory.getAbsolutePath(), e);
+        }
+        this.plugin.getLogger().info("Packed default level template in "
+            + (System.nanoTime() - startedAtNanos) / 1_000_000 + " ms: "
+            + template.getStoredSize() / 1024 + " KB of " + template.getSize() / 1024 + " KB kept in memory");
+        return template;
     }
 
     private void loadAvailableLevelNames() {
@@ -86,29 +120,18 @@ public class LevelsManager implements PluginManager {
     public CompletableFuture<Level> createLevel(
         @NonNull World.Environment environment, @NonNull UUID ownerId, @NonNull String ownerName) {
         CompletableFuture<Level> result = new CompletableFuture<>();
-        UUID levelId = this.getNextLevelId();
-        WorldCreator worldCreator = this.levelsSettings.getLevelSettingDAO().newWorldCreator(levelId);
-        worldCreator.generator(this.worldsManager.getEmptyGenerator());
-        worldCreator.environment(environment);
-
-        if (!this.defaultLevelDirectory.isDirectory()) {
-            this.plugin
-                .getLogger()
-                .severe("Default level directory not found: " + this.defaultLevelDirectory.getAbsolutePath());
-            result.complete(null);
-            return result;
-        }
-
-        this.worldsManager
-            .createWorldFromCustomDirectory(worldCreator, this.defaultLevelDirectory)
+        LevelWorldsPool.PooledWorld pooledWorld = this.worldsPool.claim(environment);
+        UUID levelId = pooledWorld == null ? this.getNextLevelId() : pooledWorld.levelId();
+        CompletableFuture<World> worldCreation = pooledWorld == null
+            ? this.createLevelWorld(levelId, environment)
+            : CompletableFuture.completedFuture(pooledWorld.world());
+        worldCreation
             .thenAccept(world -> {
                 if (world == null) {
                     result.complete(null);
                     return;
                 }
                 try {
-                    this.prepareLevelWorld(world, true);
-
                     int uniqueNumber = this.nextLevelNumber++;
                     Component displayName = Component.text("Уровень #" + uniqueNumber);
                     LevelSettings levelSettings = LevelSettings.create(
@@ -139,6 +162,34 @@ public class LevelsManager implements PluginManager {
         return result;
     }
 
+    /**
+     * @return Blank world of the level or null if failed
+     */
+    @NonNull
+    private CompletableFuture<World> createLevelWorld(@NonNull UUID levelId, @NonNull World.Environment environment) {
+        SlimeLevelsStorage slimeStorage = this.levelsSettings.getLevelSettingDAO().getSlimeStorage();
+        CompletableFuture<World> worldCreation;
+        if (slimeStorage == null) {
+            WorldCreator worldCreator = this.levelsSettings.getLevelSettingDAO().newWorldCreator(levelId);
+            worldCreator.generator(this.worldsManager.getEmptyGenerator());
+            worldCreator.environment(environment);
+            worldCreation = this.worldsManager.createWorldFromTemplate(
+                worldCreator, Objects.requireNonNull(this.defaultLevelTemplate));
+        } else {
+            if (!this.defaultLevelDirectory.isDirectory()) {
+                this.plugin
+                    .getLogger()
+                    .severe("Default level directory not found: " + this.defaultLevelDirectory.getAbsolutePath());
+                return CompletableFuture.completedFuture(null);
+            }
+            worldCreation = slimeStorage.createLevelWorld(levelId, this.defaultLevelDirectory, environment);
+        }
+        return worldCreation.thenApply(world -> {
+            if (world != null) this.prepareLevelWorld(world, true);
+            return world;
+        });
+    }
+
     @NonNull
     private UUID getNextLevelId() {
         UUID result;
@@ -157,19 +208,48 @@ public class LevelsManager implements PluginManager {
             result.complete(level);
             return result;
         }
+        if (this.migratingLevels.contains(levelId)) {
+            this.plugin.getLogger().warning("Unable to load level " + levelId + ": level is migrating");
+            result.complete(null);
+            return result;
+        }
 
-        WorldCreator worldCreator = this.levelsSettings.getLevelSettingDAO().newWorldCreator(levelId);
-        worldCreator.generator(this.worldsManager.getEmptyGenerator());
-        worldCreator.environment(World.Environment.NORMAL); // TODO Load from settings
-        this.worldsManager
-            .createWorldFromDefaultContainer(worldCreator, this.worldsManager.getSyncExecutor())
+        LevelSettingDAO dao = this.levelsSettings.getLevelSettingDAO();
+        SlimeLevelsStorage slimeStorage = dao.getSlimeStorage();
+        boolean slimeFormat = slimeStorage != null && slimeStorage.hasLevelWorld(levelId);
+        long startedAtNanos = System.nanoTime();
+        CompletableFuture<World> worldLoading;
+        if (slimeFormat) {
+            World.Environment environment;
+            try {
+                environment = dao.loadLevelWorldSettings(dao.getSettingsDirectory(levelId)).getEnvironment();
+            } catch (Exception e) {
+                this.plugin
+                    .getLogger()
+                    .log(java.util.logging.Level.SEVERE, "Не удалось загрузить уровень " + levelId, e);
+                result.complete(null);
+                return result;
+            }
+            worldLoading = slimeStorage.loadLevelWorld(levelId, environment);
+        } else {
+            WorldCreator worldCreator = dao.newWorldCreator(levelId);
+            worldCreator.generator(this.worldsManager.getEmptyGenerator());
+            worldCreator.environment(World.Environment.NORMAL); // TODO Load from settings
+            worldLoading = this.worldsManager
+                .createWorldFromDefaultContainer(worldCreator, this.worldsManager.getSyncExecutor());
+        }
+        worldLoading
             .thenAccept(world -> {
                 if (world == null) {
                     result.complete(null);
                     return;
                 }
+                this.plugin.getLogger().info("Loaded world of level " + levelId
+                    + " from " + (slimeFormat ? "slime" : "Anvil") + " format"
+                    + " in " + (System.nanoTime() - startedAtNanos) / 1_000_000 + " ms");
                 try {
-                    this.prepareLevelWorld(world, false);
+                    // Slime format doesn't keep game rules
+                    this.prepareLevelWorld(world, slimeFormat);
 
                     LevelSettings levelSettings = this.levelsSettings.loadLevelSettings(levelId, gameSettings);
                     Level loadedLevel = new Level(levelSettings, world);
@@ -191,6 +271,11 @@ public class LevelsManager implements PluginManager {
     public CompletableFuture<Boolean> deleteLevelAsync(@NonNull GameSettings settings) {
         CompletableFuture<Boolean> result = new CompletableFuture<>();
         UUID levelId = settings.getUniqueId();
+        if (this.migratingLevels.contains(levelId)) {
+            this.plugin.getLogger().warning("Unable to delete level " + levelId + ": level is migrating");
+            result.complete(false);
+            return result;
+        }
         this.unloadLevelAsync(levelId, false).thenAccept(success -> {
             if (!success) {
                 result.complete(false);
@@ -199,11 +284,43 @@ public class LevelsManager implements PluginManager {
 
             this.availableLevels.remove(settings);
             this.levelsSettings.getLevelSettingDAO().deleteLevelWorldAndSettings(levelId);
+            this.plugin.get(RunRecordsManager.class).evictLevel(levelId);
             result.complete(true);
         });
         return result;
     }
 
+    /**
+     * Converts the Anvil world of the unloaded level to the slime format.
+     * The level can't be loaded or deleted until the returned future is completed
+     *
+     * @return Result or null if the level was not migrated
+     */
+    @NonNull
+    public CompletableFuture<SlimeLevelsStorage.MigrationResult> migrateLevelToSlimeAsync(@NonNull UUID levelId) {
+        LevelSettingDAO dao = this.levelsSettings.getLevelSettingDAO();
+        SlimeLevelsStorage slimeStorage = dao.getSlimeStorage();
+        if (slimeStorage == null) {
+            throw new IllegalStateException("Slime levels storage is disabled");
+        }
+        if (this.getLoadedLevel(levelId) != null) {
+            this.plugin.getLogger().warning("Unable to migrate level " + levelId + ": level is loaded");
+            return CompletableFuture.completedFuture(null);
+        }
+        if (slimeStorage.hasLevelWorld(levelId)) {
+            this.plugin.getLogger().warning("Unable to migrate level " + levelId + ": already migrated");
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!this.migratingLevels.add(levelId)) {
+            this.plugin.getLogger().warning("Unable to migrate level " + levelId + ": already migrating");
+            return CompletableFuture.completedFuture(null);
+        }
+        return slimeStorage
+            .migrateLevelWorld(levelId, dao.getBukkitWorldDirectory(levelId), dao.getSettingsDirectory(levelId))
+            .whenCompleteAsync((result, error) -> this.migratingLevels.remove(levelId),
+                this.worldsManager.getSyncExecutor());
+    }
+
     @NonNull
     public CompletableFuture<Boolean> unloadLevelAsync(@NonNull UUID levelId, boolean saveChunks) {
         Level level = this.getLoadedLevel(levelId);
@@ -238,6 +355,7 @@ public class LevelsManager implements PluginManager {
             this.levelsSettings.unloadLevelSettings(levelId);
             this.loadedLevelsById.remove(levelId);
             this.loadedLevelsByWorld.remove(world);
+            this.plugin.get(GhostsManager.class).evictLevel(levelId);
             result.complete(true);
         });
 
@@ -250,6 +368,10 @@ public class LevelsManager implements PluginManager {
         boolean unload = this.getLoadedLevel(levelId) == null;
         CompletableFuture<Boolean> result = new CompletableFuture<>();
         this.loadLevel(levelId, null).thenAccept(level -> {
+            if (level == null) {
+                result.complete(false);
+                return;
+            }
             LevelSettings settings;
             try {
                 settings = this.levelsSettings.loadLevelSettings(
@@ -299,19 +421,34 @@ public class LevelsManager implements PluginManager {
         return result;
     }
 
-    public void saveLevelSettingsAndBlocks(@NonNull Level level) {
+    /**
+     * Writes the chunks inside the level. Loaded chunks around the level are discarded, so they are never written.
+     * Bukkit API can save only the whole world, so unchanged chunks inside the level are passed to the saving too
+     *
+     * @return Amount of the level chunks passed to the saving or -1 if the blocks were not saved
+     */
+    public int saveLevelSettingsAndBlocks(@NonNull Level level) {
         this.levelsSettings.saveWorldSettings(level.getUniqueId());
+        World world = level.getWorld();
         try {
-            // TODO Save just some exact chunks:
-            //  https://github.com/Slomix/ParkourBeat/issues/87
-            if (true) level.getWorld().save();
+            int savedChunks = 0;
+            for (Chunk chunk : world.getLoadedChunks()) {
+                if (level.isChunkInside(chunk)) {
+                    savedChunks++;
+                } else {
+                    chunk.unload(false); // Stays loaded while used, but is never saved
+                }
+            }
+            world.save();
+            return savedChunks;
         } catch (Exception e) {
             this.plugin
                 .getLogger()
                 .log(
                     java.util.logging.Level.SEVERE,
-                    "Unable to save world " + level.getWorld().getName(),
+                    "Unable to save world " + world.getName(),
                     e);
+            return -1;
         }
     }
 
@@ -430,9 +567,8 @@ public class LevelsManager implements PluginManager {
 
     @Override
     public void disable() {
-        if (!this.particlesRenderingTask.isCancelled()) {
-            this.particlesRenderingTask.cancel();
-        }
+        this.particleRenderingPipeline.shutdown();
+        this.worldsPool.disable();
 
         Location spawn = Settings.getLobbySpawn();
         for (Map.Entry<World, Level> entry : this.loadedLevelsByWorld.entrySet()) {
@@ -445,7 +581,7 @@ public class LevelsManager implements PluginManager {
             this.levelsSettings.saveWorldSettings(level.getUniqueId());
             this.worldsManager.unloadBukkitWorld(
                 world,
-                level.isEditing(),
+                true,
                 level::isChunkInside,
                 spawn,
                 false
@@ -454,10 +590,10 @@ public class LevelsManager implements PluginManager {
     }
 
     public void addParticleController(@NonNull ParticleController controller) {
-        this.particleControllers.add(controller);
+        this.particleRenderingPipeline.addController(controller);
     }
 
     public void removeParticleController(@NonNull ParticleController controller) {
-        this.particleControllers.remove(controller);
+        this.particleRenderingPipeline.removeController(controller);
     }
 }
@@ -0,0 +1,80 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.NonNull;
+import org.bukkit.Location;
+
+import java.util.List;
+
+/**
+ * Immutable table of the track segments compiled from the waypoints of a level. Shared by all runners
+ * of the level, so accuracy is calculated on primitives only, without reading waypoints on each move
+ */
+public final class MovementSegments {
+    private static final int STRIDE = 5;
+    private static final int START_X = 0;
+    private static final int START_Z = 1;
+    private static final int DIRECTION_X = 2;
+    private static final int DIRECTION_Z = 3;
+    private static final int END_PROGRESS = 4;
+
+    /**
+     * Start point, normalized horizontal direction and progress of the end point of each segment
+     */
+    private final double[] table;
+    private final int segmentsAmount;
+    private final @NonNull DirectionChecker directionChecker;
+
+    private MovementSegments(double[] table, @NonNull DirectionChecker directionChecker) {
+        this.table = table;
+        this.segmentsAmount = table.length / STRIDE;
+        this.directionChecker = directionChecker;
+    }
+
+    @NonNull
+    public static MovementSegments compile(@NonNull List<Waypoint> waypoints,
+                                           @NonNull DirectionChecker directionChecker
+    ) {
+        int segments = Math.max(0, waypoints.size() - 1);
+        double[] table = new double[segments * STRIDE];
+        for (int segment = 0; segment < segments; segment++) {
+            Location start = waypoints.get(segment).getLocation();
+            Location end = waypoints.get(segment + 1).getLocation();
+            double dx = end.getX() - start.getX();
+            double dz = end.getZ() - start.getZ();
+            double length = Math.sqrt(dx * dx + dz * dz);
+            int i = segment * STRIDE;
+            table[i + START_X] = start.getX();
+            table[i + START_Z] = start.getZ();
+            // Vertical segments keep zero direction, so the distance to them is always zero
+            table[i + DIRECTION_X] = length == 0 ? 0 : dx / length;
+            table[i + DIRECTION_Z] = length == 0 ? 0 : dz / length;
+            table[i + END_PROGRESS] = directionChecker.getProgress(end);
+        }
+        return new MovementSegments(table, directionChecker);
+    }
+
+    public int getSegmentsAmount() {
+        return this.segmentsAmount;
+    }
+
+    /**
+     * @return Position of the point along the level direction, ascending towards the finish
+     */
+    public double getProgress(double x, double z) {
+        return this.directionChecker.getProgress(x, z);
+    }
+
+    public double getEndProgress(int segment) {
+        return this.table[segment * STRIDE + END_PROGRESS];
+    }
+
+    /**
+     * @return Horizontal distance from the point to the line of the segment
+     */
+    public double getDistanceToLine(int segment, double x, double z) {
+        int i = segment * STRIDE;
+        double px = x - this.table[i + START_X];
+        double pz = z - this.table[i + START_Z];
+        return Math.abs(px * this.table[i + DIRECTION_Z] - pz * this.table[i + DIRECTION_X]);
+    }
+}
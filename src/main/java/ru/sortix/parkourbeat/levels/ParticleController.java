@@ -6,28 +6,36 @@ import org.bukkit.Color;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.util.Vector;
 import ru.sortix.parkourbeat.ParkourBeat;
 import ru.sortix.parkourbeat.item.editor.type.EditTrackPointsItem;
-import ru.sortix.parkourbeat.utils.java.ParticleUtils;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 
 public class ParticleController {
     private static final double SEGMENT_LENGTH = 0.25;
-    private static final double MAX_PARTICLES_VIEW_DISTANCE_SQUARED = Math.pow(10, 2);
+    private static final double MAX_PARTICLES_VIEW_DISTANCE = 10;
+    private static final double MAX_PARTICLES_VIEW_DISTANCE_SQUARED = Math.pow(MAX_PARTICLES_VIEW_DISTANCE, 2);
+    /**
+     * Length of the path section along the level direction. Equal to the view distance,
+     * so each viewer touches at most three sections: the current one and both neighbours
+     */
+    private static final double SECTION_LENGTH = MAX_PARTICLES_VIEW_DISTANCE;
 
     private final @NonNull ParkourBeat plugin;
-    private final @NonNull ConcurrentLinkedQueue<Location> particleLocations = new ConcurrentLinkedQueue<>();
-    private final @NonNull Map<Double, Color> colorsChangeLocations = new LinkedHashMap<>();
-    private final @NonNull Set<Player> particleViewers = ConcurrentHashMap.newKeySet();
+    private final @NonNull List<PathSegment> pathSegments = new ArrayList<>();
+    private volatile @NonNull ParticlePath particlePath = ParticlePath.EMPTY;
+    private volatile @NonNull ColorZones colorZones = ColorZones.EMPTY;
+    private final @NonNull Map<Player, ViewerState> particleViewers = new ConcurrentHashMap<>();
     @Getter
     private final @NonNull World world;
     private final @NonNull DirectionChecker directionChecker;
+    private final @NonNull ParticleEmitter particleEmitter;
+    private final @NonNull CubicBezierSampler curveSampler = new CubicBezierSampler();
     private boolean isLoaded = false;
+    @Getter
+    private volatile long lastRenderTimeNanos = 0;
 
     public ParticleController(
         @NonNull ParkourBeat plugin,
@@ -37,102 +45,138 @@ public class ParticleController {
         this.plugin = plugin;
         this.world = world;
         this.directionChecker = directionChecker;
+        this.particleEmitter = ParticleEmitter.create(plugin);
     }
 
-    @NonNull
-    public static List<Location> createCurvedPath(@NonNull Location start, Location end, double height) {
-        List<Location> path = new ArrayList<>();
-
-        Vector startVector = start.toVector();
-        Vector endVector = end.toVector();
-
-        double length = startVector.distance(endVector); // Длина отрезка
-        int segments = calculateSegments(length, height);
-
-        // Определение точек управления для кубической интерполяции
-        Vector control1 = startVector.clone().midpoint(endVector).add(new Vector(0, height, 0));
-        Vector control2 = endVector.clone().midpoint(startVector).add(new Vector(0, height, 0));
-
-        for (int t = 0; t <= segments; t++) {
-            double ratio = t / (double) segments;
-
-            Vector interpolated = cubicBezierInterpolation(startVector, control1, control2, endVector, ratio);
+    public void loadParticleLocations(@NonNull List<Waypoint> waypoints) {
+        this.stopSpawnParticles();
 
-            Location location =
-                new Location(start.getWorld(), interpolated.getX(), interpolated.getY(), interpolated.getZ());
-            path.add(location);
+        this.isLoaded = false;
+        this.pathSegments.clear();
+        for (int i = 0; i < waypoints.size() - 1; i++) {
+            this.pathSegments.add(this.createSegment(waypoints.get(i), waypoints.get(i + 1)));
         }
+        this.rebuildPath();
+        this.isLoaded = true;
+        this.plugin.get(LevelsManager.class).addParticleController(this);
+    }
 
-        return path;
+    /**
+     * Recalculates segments around the new waypoint only
+     *
+     * @param waypoints Waypoints list after insertion
+     * @param index     Index of the inserted waypoint
+     */
+    public void onWaypointInserted(@NonNull List<Waypoint> waypoints, int index) {
+        if (!this.isLoaded) {
+            this.loadParticleLocations(waypoints);
+            return;
+        }
+        // Segment (index - 1 -> index + 1) is split into (index - 1 -> index) and (index -> index + 1)
+        boolean inside = index > 0 && index < waypoints.size() - 1;
+        this.replaceSegments(waypoints, Math.max(0, index - 1), inside ? 1 : 0, inside ? 2 : 1);
     }
 
-    private static int calculateSegments(double length, double height) {
-        // Рассчитываем количество сегментов на основе длины и высоты дуги
-        double totalLength = Math.sqrt(length * length + height * height);
-        int segments = (int) Math.ceil(totalLength / SEGMENT_LENGTH);
-        // Гарантируем, что хотя бы один сегмент
-        segments = Math.max(segments, 1);
+    /**
+     * Recalculates segments around the removed waypoint only
+     *
+     * @param waypoints Waypoints list after removal
+     * @param index     Index of the removed waypoint
+     */
+    public void onWaypointRemoved(@NonNull List<Waypoint> waypoints, int index) {
+        if (!this.isLoaded) {
+            this.loadParticleLocations(waypoints);
+            return;
+        }
+        // Segments (index - 1 -> index) and (index -> index + 1) are merged into (index - 1 -> index + 1)
+        boolean inside = index > 0 && index < waypoints.size();
+        this.replaceSegments(waypoints, Math.max(0, index - 1), inside ? 2 : 1, inside ? 1 : 0);
+    }
 
-        return segments;
+    /**
+     * Recalculates segments adjacent to the changed waypoint only
+     *
+     * @param waypoints Waypoints list
+     * @param index     Index of the changed waypoint
+     */
+    public void onWaypointChanged(@NonNull List<Waypoint> waypoints, int index) {
+        if (!this.isLoaded) {
+            this.loadParticleLocations(waypoints);
+            return;
+        }
+        int firstSegment = Math.max(0, index - 1);
+        int lastSegment = Math.min(index, waypoints.size() - 2);
+        int amount = lastSegment - firstSegment + 1;
+        this.replaceSegments(waypoints, firstSegment, amount, amount);
     }
 
-    @NonNull
-    private static Vector cubicBezierInterpolation(@NonNull Vector p0,
-                                                   @NonNull Vector p1,
-                                                   @NonNull Vector p2,
-                                                   @NonNull Vector p3,
-                                                   double t
+    private void replaceSegments(@NonNull List<Waypoint> waypoints,
+                                 int firstSegment,
+                                 int removedAmount,
+                                 int createdAmount
     ) {
-        double u = 1 - t;
-        double tt = t * t;
-        double uu = u * u;
-        double uuu = uu * u;
-        double ttt = tt * t;
-
-        Vector p = p0.clone().multiply(uuu);
-        p.add(p1.clone().multiply(3 * uu * t));
-        p.add(p2.clone().multiply(3 * u * tt));
-        p.add(p3.clone().multiply(ttt));
-
-        return p;
+        if (this.pathSegments.size() - removedAmount + createdAmount != waypoints.size() - 1) {
+            // Waypoints were changed without notifying the controller
+            this.loadParticleLocations(waypoints);
+            return;
+        }
+        for (int i = 0; i < removedAmount; i++) {
+            this.pathSegments.remove(firstSegment);
+        }
+        for (int i = 0; i < createdAmount; i++) {
+            int segment = firstSegment + i;
+            this.pathSegments.add(segment, this.createSegment(waypoints.get(segment), waypoints.get(segment + 1)));
+        }
+        this.rebuildPath();
     }
 
-    public void loadParticleLocations(@NonNull List<Waypoint> waypoints) {
-        this.stopSpawnParticles();
-
-        if (this.isLoaded) {
-            this.isLoaded = false;
-            this.particleLocations.clear();
-            this.colorsChangeLocations.clear();
+    @NonNull
+    private PathSegment createSegment(@NonNull Waypoint currentPoint, @NonNull Waypoint nextPoint) {
+        ParticlePath.Builder path = new ParticlePath.Builder();
+        double height = currentPoint.getHeight();
+        if (height == 0) {
+            createStraightPath(path, currentPoint.getLocation(), nextPoint.getLocation());
+        } else {
+            Location start = currentPoint.getLocation();
+            Location end = nextPoint.getLocation();
+            this.curveSampler.sampleArc(path,
+                start.getX(), start.getY(), start.getZ(),
+                end.getX(), end.getY(), end.getZ(),
+                height, SEGMENT_LENGTH);
         }
+        return new PathSegment(
+            this.directionChecker.getCoordinate(currentPoint.getLocation()),
+            currentPoint.getColor(),
+            path.toCoordinates()
+        );
+    }
 
+    /**
+     * Splices cached points of all segments into the new packed path and updates color change markers
+     */
+    private void rebuildPath() {
+        ParticlePath.Builder path = new ParticlePath.Builder();
+        ColorZones.Builder colorZones = new ColorZones.Builder();
         Color previousColor = null;
-        for (int i = 0; i < waypoints.size() - 1; i++) {
-            Waypoint currentPoint = waypoints.get(i);
-            Waypoint nextPoint = waypoints.get(i + 1);
-            if (!currentPoint.getColor().equals(previousColor)) {
-                this.colorsChangeLocations.put(
-                    this.directionChecker.getCoordinate(currentPoint.getLocation()), currentPoint.getColor());
-                previousColor = currentPoint.getColor();
-            }
-
-            double height = currentPoint.getHeight();
-            if (height == 0) {
-                List<Location> straightPath = createStraightPath(currentPoint.getLocation(), nextPoint.getLocation());
-                this.particleLocations.addAll(straightPath);
-            } else {
-                List<Location> curvedPath =
-                    createCurvedPath(currentPoint.getLocation(), nextPoint.getLocation(), height);
-                this.particleLocations.addAll(curvedPath);
+        for (PathSegment segment : this.pathSegments) {
+            if (!segment.color().equals(previousColor)) {
+                colorZones.add(this.directionChecker.toProgress(segment.startCoordinate()), segment.color());
+                previousColor = segment.color();
             }
+            path.add(segment.coordinates());
         }
-        this.isLoaded = true;
-        this.plugin.get(LevelsManager.class).addParticleController(this);
+        this.colorZones = colorZones.build();
+        this.particlePath = path.build(this.directionChecker, SECTION_LENGTH);
+        this.particleEmitter.invalidate();
+    }
+
+    private static int getSectionIndex(double coordinate) {
+        return (int) Math.floor(coordinate / SECTION_LENGTH);
     }
 
     private static long LAST_STACK_PRINTED_AT = 0;
 
-    public void tickParticles() {
+    public void tickParticles(@NonNull ParticleRenderPolicy policy) {
         if (!this.isLoaded) {
             this.plugin.getLogger().severe(
                 "Unable to tick particles in world " + this.world.getName() + ": "
@@ -140,9 +184,13 @@ public class ParticleController {
             return;
         }
 
-        for (Player player : this.particleViewers) {
+        long startedAt = System.nanoTime();
+        ParticlePath path = this.particlePath;
+        ColorZones colorZones = this.colorZones;
+        for (Map.Entry<Player, ViewerState> entry : this.particleViewers.entrySet()) {
+            Player player = entry.getKey();
             try {
-                this.displayPlayerParticles(player);
+                this.displayPlayerParticles(player, entry.getValue(), path, colorZones, policy);
             } catch (Exception e) {
                 if (System.currentTimeMillis() - LAST_STACK_PRINTED_AT > 5_000) {
                     LAST_STACK_PRINTED_AT = System.currentTimeMillis();
@@ -156,9 +204,15 @@ public class ParticleController {
                 }
             }
         }
+        this.lastRenderTimeNanos = System.nanoTime() - startedAt;
     }
 
-    private void displayPlayerParticles(@NonNull Player player) {
+    private void displayPlayerParticles(@NonNull Player player,
+                                        @NonNull ViewerState viewerState,
+                                        @NonNull ParticlePath path,
+                                        @NonNull ColorZones colorZones,
+                                        @NonNull ParticleRenderPolicy policy
+    ) {
         if (!player.isOnline()) {
             throw new IllegalStateException("Player is not online!");
         }
@@ -166,29 +220,58 @@ public class ParticleController {
             throw new IllegalStateException("Wrong player world: " + player.getWorld().getName());
         }
 
-        Color color = getCurrentColor(player.getLocation());
+        Location playerLocation = player.getLocation();
+        double playerCoordinate = this.directionChecker.getCoordinate(playerLocation);
+        Color color = getCurrentColor(viewerState, colorZones, playerCoordinate);
 
-        // TODO Отправлять лишь частицы из двух ближайших секций:
+        // Отправляем лишь частицы из текущей и соседних секций:
         //  https://github.com/Slomix/ParkourBeat/issues/17
-        //noinspection UnnecessaryLocalVariable
-        Iterable<Location> locations = this.particleLocations;
-        ParticleUtils.displayRedstoneParticles(
-            true, // TODO Detect is player version is 1.12.2 or older
-            player,
-            color,
-            1.0f,
-            locations,
-            MAX_PARTICLES_VIEW_DISTANCE_SQUARED
+        // Текущая секция, затем секция впереди игрока и лишь после неё секция позади
+        int playerSection = getSectionIndex(playerCoordinate);
+        int aheadOffset = this.directionChecker.isNegative() ? -1 : 1;
+        ViewCone viewCone = new ViewCone(
+            playerLocation,
+            player.getEyeHeight(),
+            this.directionChecker,
+            MAX_PARTICLES_VIEW_DISTANCE_SQUARED,
+            policy.isViewConeCulling() ? policy.getViewConeAngle() : 360,
+            policy.isViewConeCulling() && viewerState.runner
         );
+        int limit = policy.getParticlesPerPassLimit();
+        int displayed = 0;
+        for (int sectionOffset : new int[]{0, aheadOffset, -aheadOffset}) {
+            if (displayed >= limit) break;
+            displayed += this.particleEmitter.displaySection(
+                viewerState.protocolBucket,
+                player,
+                color,
+                policy.getDustSize(),
+                path,
+                playerSection + sectionOffset,
+                policy.getPointsStride(Math.abs(sectionOffset)),
+                limit - displayed,
+                viewCone
+            );
+        }
+        policy.onViewerRendered(displayed, viewCone.getCulledPoints(), displayed >= limit);
     }
 
     public void startSpawnParticles(@NonNull Player player) {
+        this.startSpawnParticles(player, false);
+    }
+
+    /**
+     * @param runner True if the player can move only forward along the level direction,
+     *               so particles behind the player are not displayed
+     */
+    public void startSpawnParticles(@NonNull Player player, boolean runner) {
         if (false && player.getWorld() != this.world) {
             throw new IllegalStateException(
                 "Player is not in world " + this.world.getName() + "!\nPlayer world: " + player.getWorld().getName());
         }
 
-        this.particleViewers.add(player);
+        this.particleViewers.computeIfAbsent(player,
+            viewer -> new ViewerState(runner, this.particleEmitter.getProtocolBucket(viewer)));
     }
 
     public void stopSpawnParticlesForPlayer(@NonNull Player player) {
@@ -203,33 +286,80 @@ public class ParticleController {
         return this.isLoaded;
     }
 
-    @NonNull
-    private Color getCurrentColor(@NonNull Location location) {
-        Color lastColor = null;
-        for (Map.Entry<Double, Color> entry : this.colorsChangeLocations.entrySet()) {
-            if (lastColor == null || this.directionChecker.isAheadDirection(location, entry.getKey())) {
-                lastColor = entry.getValue();
-                continue;
-            }
-            break;
+    public int getViewersAmount() {
+        return this.particleViewers.size();
+    }
+
+    public int getParticlesAmount() {
+        return this.particlePath.getPointsAmount();
+    }
+
+    /**
+     * @return Approximate amount of heap memory in bytes occupied by the particle path and cached segments
+     */
+    public long getMemoryFootprintBytes() {
+        long result = this.particlePath.getMemoryFootprintBytes();
+        for (PathSegment segment : this.pathSegments) {
+            result += ParticlePath.getMemoryFootprintBytes(segment.coordinates());
         }
-        return lastColor == null ? EditTrackPointsItem.DEFAULT_PARTICLES_COLOR : lastColor;
+        return result;
     }
 
     @NonNull
-    private List<Location> createStraightPath(@NonNull Location start, @NonNull Location end) {
-        List<Location> path = new ArrayList<>();
-        Vector vector = end.toVector().subtract(start.toVector());
-        double length = vector.length();
-        vector.normalize();
+    private Color getCurrentColor(@NonNull ViewerState viewerState,
+                                  @NonNull ColorZones colorZones,
+                                  double coordinate
+    ) {
+        if (colorZones.isEmpty()) return EditTrackPointsItem.DEFAULT_PARTICLES_COLOR;
+        if (viewerState.colorZones != colorZones) {
+            viewerState.colorZones = colorZones;
+            viewerState.colorZone = -1;
+        }
+        viewerState.colorZone = colorZones.findZone(
+            viewerState.colorZone, this.directionChecker.toProgress(coordinate));
+        return colorZones.getColor(viewerState.colorZone);
+    }
+
+    private static void createStraightPath(
+        @NonNull ParticlePath.Builder path,
+        @NonNull Location start,
+        @NonNull Location end
+    ) {
+        double startX = start.getX();
+        double startY = start.getY();
+        double startZ = start.getZ();
+
+        double dx = end.getX() - startX;
+        double dy = end.getY() - startY;
+        double dz = end.getZ() - startZ;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (length == 0) return;
+        dx /= length;
+        dy /= length;
+        dz /= length;
 
         double points = length * 4;
 
         for (double i = 0; i < length; i += length / points) {
-            Location location = start.clone().add(vector.clone().multiply(i)).add(0, 0.2, 0);
-            path.add(location);
+            path.add(startX + dx * i, startY + dy * i + 0.2, startZ + dz * i);
         }
+    }
+
+    /**
+     * Render state of the viewer. Accessed by the rendering thread only
+     */
+    private static final class ViewerState {
+        private final boolean runner;
+        private final @NonNull ParticleEmitter.ProtocolBucket protocolBucket;
+        private ColorZones colorZones = null;
+        private int colorZone = -1;
+
+        private ViewerState(boolean runner, @NonNull ParticleEmitter.ProtocolBucket protocolBucket) {
+            this.runner = runner;
+            this.protocolBucket = protocolBucket;
+        }
+    }
 
-        return path;
+    private record PathSegment(double startCoordinate, @NonNull Color color, @NonNull float[] coordinates) {
     }
 }
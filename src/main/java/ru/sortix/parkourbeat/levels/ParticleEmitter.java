@@ -0,0 +1,67 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.NonNull;
+import org.bukkit.Color;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import ru.sortix.parkourbeat.utils.java.ParticleUtils;
+
+/**
+ * Sends particles of the path sections to the viewers. Each {@link ParticleController} owns its own emitter,
+ * so implementations may cache data of its path until the path is invalidated
+ */
+interface ParticleEmitter {
+    @NonNull
+    static ParticleEmitter create(@NonNull Plugin plugin) {
+        if (ParticleUtils.isDustOptionsSupport()
+            && plugin.getServer().getPluginManager().isPluginEnabled("ProtocolLib")) {
+            return new ProtocolParticleEmitter();
+        }
+        return new BukkitParticleEmitter();
+    }
+
+    /**
+     * @return Encoding of particle colors expected by the client
+     */
+    @NonNull
+    ProtocolBucket getProtocolBucket(@NonNull Player player);
+
+    /**
+     * Called when the path or its colors are changed, so data cached for the previous path is dropped
+     */
+    void invalidate();
+
+    /**
+     * @param step   Display every N-th point of the section
+     * @param limit  Max amount of particles to display
+     * @param filter Points of the section visible to the player
+     * @return Amount of displayed particles
+     */
+    int displaySection(@NonNull ProtocolBucket protocolBucket,
+                       @NonNull Player player,
+                       @NonNull Color color,
+                       float size,
+                       @NonNull ParticlePath path,
+                       int section,
+                       int step,
+                       int limit,
+                       @NonNull ParticleUtils.PointFilter filter);
+
+    /**
+     * Client protocol versions sharing the same encoding of particle packets
+     */
+    enum ProtocolBucket {
+        /**
+         * 1.12.2 and older, color is encoded in the offset and size is not supported
+         */
+        LEGACY,
+        /**
+         * 1.13 and newer, color and size are sent as dust options
+         */
+        MODERN;
+
+        boolean isLegacy() {
+            return this == LEGACY;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Immutable packed particle path. Point coordinates are stored as x, y, z triples in one float array
+ * and grouped by sections along the level direction, so rendering reads them without any allocation
+ */
+final class ParticlePath {
+    static final ParticlePath EMPTY = new ParticlePath(new float[0], 0, new int[]{0});
+
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int OBJECT_HEADER_BYTES = 16;
+
+    private final float[] coordinates;
+    private final int firstSection;
+    /**
+     * Offsets of the first point of each section. Points of section {@code firstSection + i}
+     * are located in range [sectionOffsets[i], sectionOffsets[i + 1])
+     */
+    private final int[] sectionOffsets;
+
+    private ParticlePath(float[] coordinates, int firstSection, int[] sectionOffsets) {
+        this.coordinates = coordinates;
+        this.firstSection = firstSection;
+        this.sectionOffsets = sectionOffsets;
+    }
+
+    /**
+     * @return Raw coordinates of all points. Must not be modified
+     */
+    float[] getCoordinates() {
+        return this.coordinates;
+    }
+
+    int getPointsAmount() {
+        return this.coordinates.length / 3;
+    }
+
+    /**
+     * @return Index of the first point in the section or -1 if section is empty
+     */
+    int getSectionStart(int section) {
+        int index = section - this.firstSection;
+        if (index < 0 || index >= this.sectionOffsets.length - 1) return -1;
+        return this.sectionOffsets[index];
+    }
+
+    /**
+     * @return Index after the last point in the section or -1 if section is empty
+     */
+    int getSectionEnd(int section) {
+        int index = section - this.firstSection;
+        if (index < 0 || index >= this.sectionOffsets.length - 1) return -1;
+        return this.sectionOffsets[index + 1];
+    }
+
+    long getMemoryFootprintBytes() {
+        return OBJECT_HEADER_BYTES
+            + getMemoryFootprintBytes(this.coordinates)
+            + ARRAY_HEADER_BYTES + (long) this.sectionOffsets.length * Integer.BYTES;
+    }
+
+    static long getMemoryFootprintBytes(@NonNull float[] coordinates) {
+        return ARRAY_HEADER_BYTES + (long) coordinates.length * Float.BYTES;
+    }
+
+    static final class Builder {
+        private float[] coordinates = new float[3 * 256];
+        private int size = 0;
+
+        void add(double x, double y, double z) {
+            if (this.size + 3 > this.coordinates.length) {
+                this.coordinates = Arrays.copyOf(this.coordinates, this.coordinates.length * 2);
+            }
+            this.coordinates[this.size++] = (float) x;
+            this.coordinates[this.size++] = (float) y;
+            this.coordinates[this.size++] = (float) z;
+        }
+
+        void add(@NonNull float[] coordinates) {
+            if (this.size + coordinates.length > this.coordinates.length) {
+                this.coordinates = Arrays.copyOf(this.coordinates,
+                    Math.max(this.coordinates.length * 2, this.size + coordinates.length));
+            }
+            System.arraycopy(coordinates, 0, this.coordinates, this.size, coordinates.length);
+            this.size += coordinates.length;
+        }
+
+        void clear() {
+            this.size = 0;
+        }
+
+        @NonNull
+        float[] toCoordinates() {
+            return Arrays.copyOf(this.coordinates, this.size);
+        }
+
+        /**
+         * @param directionChecker Direction of the level
+         * @param sectionLength    Length of each section along the level direction
+         * @return Path with points sorted by sections
+         */
+        @NonNull
+        ParticlePath build(@NonNull DirectionChecker directionChecker, double sectionLength) {
+            int points = this.size / 3;
+            if (points == 0) return EMPTY;
+
+            int coordinateOffset = directionChecker.getCoordinateOffset();
+            int[] pointSections = new int[points];
+            int firstSection = Integer.MAX_VALUE;
+            int lastSection = Integer.MIN_VALUE;
+            for (int point = 0; point < points; point++) {
+                int section = (int) Math.floor(this.coordinates[point * 3 + coordinateOffset] / sectionLength);
+                pointSections[point] = section;
+                firstSection = Math.min(firstSection, section);
+                lastSection = Math.max(lastSection, section);
+            }
+
+            // Counting sort of the points by sections, keeping their original order inside each section
+            int[] sectionOffsets = new int[lastSection - firstSection + 2];
+            for (int section : pointSections) {
+                sectionOffsets[section - firstSection + 1]++;
+            }
+            for (int i = 1; i < sectionOffsets.length; i++) {
+                sectionOffsets[i] += sectionOffsets[i - 1];
+            }
+
+            int[] positions = Arrays.copyOf(sectionOffsets, sectionOffsets.length - 1);
+            float[] sorted = new float[points * 3];
+            for (int point = 0; point < points; point++) {
+                int target = positions[pointSections[point] - firstSection]++;
+                System.arraycopy(this.coordinates, point * 3, sorted, target * 3, 3);
+            }
+
+            return new ParticlePath(sorted, firstSection, sectionOffsets);
+        }
+    }
+}
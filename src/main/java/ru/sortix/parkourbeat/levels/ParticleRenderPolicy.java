@@ -0,0 +1,178 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.configuration.ConfigurationSection;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive level of detail for path particles. Stretches the render period when MSPT rises,
+ * thins out points of the sections far from the viewer, culls points the viewer can't see
+ * and limits particles sent to each player
+ */
+@Getter
+public class ParticleRenderPolicy {
+    private static final int TICKS_PER_SECOND = 20;
+
+    // Tuning options
+    private final int basePeriodTicks;
+    private final int maxPeriodTicks;
+    private final double targetMspt;
+    private final double msptPerExtraTick;
+    private final int farSectionsStride;
+    private final int maxParticlesPerPlayerPerSecond;
+    private final int workerThreads;
+    private final boolean viewConeCulling;
+    private final double viewConeAngle;
+    private final float dustSize;
+
+    // Current decisions
+    private volatile double lastMspt = 0;
+    private volatile int currentPeriodTicks;
+    @Getter(AccessLevel.NONE)
+    private int ticksSinceLastPass = 0;
+
+    // Statistics
+    private final AtomicLong renderPasses = new AtomicLong();
+    private final AtomicLong sentParticles = new AtomicLong();
+    private final AtomicLong cappedViewers = new AtomicLong();
+    private final AtomicLong culledParticles = new AtomicLong();
+
+    public ParticleRenderPolicy(int basePeriodTicks,
+                                int maxPeriodTicks,
+                                double targetMspt,
+                                double msptPerExtraTick,
+                                int farSectionsStride,
+                                int maxParticlesPerPlayerPerSecond,
+                                int workerThreads,
+                                boolean viewConeCulling,
+                                double viewConeAngle,
+                                float dustSize
+    ) {
+        if (basePeriodTicks < 1 || maxPeriodTicks < basePeriodTicks) {
+            throw new IllegalArgumentException("Wrong render period range: " + basePeriodTicks + ".." + maxPeriodTicks);
+        }
+        if (msptPerExtraTick <= 0) {
+            throw new IllegalArgumentException("Wrong MSPT per extra tick: " + msptPerExtraTick);
+        }
+        if (farSectionsStride < 1) {
+            throw new IllegalArgumentException("Wrong far sections stride: " + farSectionsStride);
+        }
+        if (maxParticlesPerPlayerPerSecond < 1) {
+            throw new IllegalArgumentException("Wrong particles limit: " + maxParticlesPerPlayerPerSecond);
+        }
+        if (workerThreads < 1) {
+            throw new IllegalArgumentException("Wrong worker threads amount: " + workerThreads);
+        }
+        if (viewConeAngle <= 0 || viewConeAngle > 360) {
+            throw new IllegalArgumentException("Wrong view cone angle: " + viewConeAngle);
+        }
+        if (dustSize <= 0) {
+            throw new IllegalArgumentException("Wrong dust size: " + dustSize);
+        }
+        this.basePeriodTicks = basePeriodTicks;
+        this.maxPeriodTicks = maxPeriodTicks;
+        this.targetMspt = targetMspt;
+        this.msptPerExtraTick = msptPerExtraTick;
+        this.farSectionsStride = farSectionsStride;
+        this.maxParticlesPerPlayerPerSecond = maxParticlesPerPlayerPerSecond;
+        this.workerThreads = workerThreads;
+        this.viewConeCulling = viewConeCulling;
+        this.viewConeAngle = viewConeAngle;
+        this.dustSize = dustSize;
+        this.currentPeriodTicks = basePeriodTicks;
+    }
+
+    @NonNull
+    public static ParticleRenderPolicy load(@Nullable ConfigurationSection config) {
+        if (config == null) {
+            return new ParticleRenderPolicy(5, 20, 40, 2.5, 2, 600, getDefaultWorkerThreads(), true, 140, 1);
+        }
+        return new ParticleRenderPolicy(
+            config.getInt("base_period_ticks", 5),
+            config.getInt("max_period_ticks", 20),
+            config.getDouble("target_mspt", 40),
+            config.getDouble("mspt_per_extra_tick", 2.5),
+            config.getInt("far_sections_stride", 2),
+            config.getInt("max_particles_per_player_per_second", 600),
+            config.getInt("worker_threads", getDefaultWorkerThreads()),
+            config.getBoolean("view_cone_culling", true),
+            config.getDouble("view_cone_angle", 140),
+            (float) config.getDouble("dust_size", 1)
+        );
+    }
+
+    private static int getDefaultWorkerThreads() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Must be called every server tick from the rendering thread
+     *
+     * @param mspt Average server tick duration in milliseconds
+     * @return True if particles should be rendered at this tick
+     */
+    public synchronized boolean onTick(double mspt) {
+        if (++this.ticksSinceLastPass < this.currentPeriodTicks) return false;
+        this.ticksSinceLastPass = 0;
+        this.lastMspt = mspt;
+        this.currentPeriodTicks = this.calculatePeriodTicks(mspt);
+        this.renderPasses.incrementAndGet();
+        return true;
+    }
+
+    private int calculatePeriodTicks(double mspt) {
+        if (mspt <= this.targetMspt) return this.basePeriodTicks;
+        int extraTicks = (int) Math.ceil((mspt - this.targetMspt) / this.msptPerExtraTick);
+        return Math.min(this.maxPeriodTicks, this.basePeriodTicks + extraTicks);
+    }
+
+    /**
+     * @param sectionDistance Distance in sections between the viewer and rendered section
+     * @return Render every N-th point of the section
+     */
+    public int getPointsStride(int sectionDistance) {
+        return sectionDistance == 0 ? 1 : this.farSectionsStride;
+    }
+
+    /**
+     * @return Max particles amount sent to one player during one render pass
+     */
+    public int getParticlesPerPassLimit() {
+        return Math.max(1, this.maxParticlesPerPlayerPerSecond * this.currentPeriodTicks / TICKS_PER_SECOND);
+    }
+
+    public long getRenderPasses() {
+        return this.renderPasses.get();
+    }
+
+    public long getSentParticles() {
+        return this.sentParticles.get();
+    }
+
+    public long getCappedViewers() {
+        return this.cappedViewers.get();
+    }
+
+    public long getCulledParticles() {
+        return this.culledParticles.get();
+    }
+
+    /**
+     * @return Share of the points within view distance which were culled instead of being sent
+     */
+    public double getCullingRate() {
+        long culled = this.culledParticles.get();
+        long total = culled + this.sentParticles.get();
+        return total == 0 ? 0 : (double) culled / total;
+    }
+
+    public void onViewerRendered(int sentParticles, int culledParticles, boolean capped) {
+        this.sentParticles.addAndGet(sentParticles);
+        this.culledParticles.addAndGet(culledParticles);
+        if (capped) this.cappedViewers.incrementAndGet();
+    }
+}
@@ -0,0 +1,120 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Renders particles of all loaded levels. Controllers are sharded across a bounded pool of worker threads,
+ * so levels don't queue behind each other. A new render pass starts only after the previous one is finished
+ */
+public class ParticleRenderingPipeline {
+    private final @NonNull Plugin plugin;
+    @Getter
+    private final @NonNull ParticleRenderPolicy policy;
+    private final int workerThreads;
+    private final @NonNull Set<ParticleController> controllers = ConcurrentHashMap.newKeySet();
+    private final @NonNull ExecutorService workers;
+    private final @NonNull AtomicInteger runningShards = new AtomicInteger();
+    private final @NonNull BukkitTask dispatchingTask;
+    private final @NonNull AtomicLong skippedPasses = new AtomicLong();
+
+    public ParticleRenderingPipeline(@NonNull Plugin plugin, @NonNull ParticleRenderPolicy policy) {
+        this.plugin = plugin;
+        this.policy = policy;
+        this.workerThreads = policy.getWorkerThreads();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ParkourBeat Particles #" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatchingTask = plugin.getServer().getScheduler()
+            .runTaskTimerAsynchronously(plugin, this::dispatchRenderPass, 0, 1);
+    }
+
+    public void addController(@NonNull ParticleController controller) {
+        this.controllers.add(controller);
+    }
+
+    public void removeController(@NonNull ParticleController controller) {
+        this.controllers.remove(controller);
+    }
+
+    @NonNull
+    public Collection<ParticleController> getControllers() {
+        return Collections.unmodifiableCollection(this.controllers);
+    }
+
+    /**
+     * @return Amount of render passes skipped because the previous one was still running
+     */
+    public long getSkippedPasses() {
+        return this.skippedPasses.get();
+    }
+
+    private void dispatchRenderPass() {
+        if (!this.policy.onTick(this.plugin.getServer().getAverageTickTime())) return;
+        if (this.runningShards.get() > 0) {
+            this.skippedPasses.incrementAndGet();
+            return;
+        }
+
+        List<List<ParticleController>> shards = new ArrayList<>(this.workerThreads);
+        int shardIndex = 0;
+        for (ParticleController controller : this.controllers) {
+            if (shards.size() < this.workerThreads) {
+                shards.add(new ArrayList<>());
+            }
+            shards.get(shardIndex).add(controller);
+            shardIndex = (shardIndex + 1) % this.workerThreads;
+        }
+
+        this.runningShards.addAndGet(shards.size());
+        for (List<ParticleController> shard : shards) {
+            try {
+                this.workers.execute(() -> this.renderShard(shard));
+            } catch (RejectedExecutionException e) {
+                this.runningShards.decrementAndGet();
+            }
+        }
+    }
+
+    private void renderShard(@NonNull List<ParticleController> shard) {
+        try {
+            for (ParticleController controller : shard) {
+                try {
+                    controller.tickParticles(this.policy);
+                } catch (Exception e) {
+                    this.plugin.getLogger().log(Level.SEVERE,
+                        "Unable to render particles in world " + controller.getWorld().getName(), e);
+                }
+            }
+        } finally {
+            this.runningShards.decrementAndGet();
+        }
+    }
+
+    public void shutdown() {
+        if (!this.dispatchingTask.isCancelled()) {
+            this.dispatchingTask.cancel();
+        }
+        this.workers.shutdown();
+        this.controllers.clear();
+    }
+}
@@ -0,0 +1,128 @@
+package ru.sortix.parkourbeat.levels;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.WrappedParticle;
+import lombok.NonNull;
+import org.bukkit.Color;
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+import ru.sortix.parkourbeat.utils.java.ParticleUtils;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds particle packets of each section once per color, size and protocol bucket, and sends the same
+ * packet objects to every viewer of the section. Packets are kept until the path is changed
+ */
+class ProtocolParticleEmitter implements ParticleEmitter {
+    private static final int PROTOCOL_1_13 = 393;
+
+    private final ProtocolManager protocolManager = ProtocolLibrary.getProtocolManager();
+    /**
+     * Packets of the path rendered last. Replaced by the rendering thread once it gets another path,
+     * so packets of the previous path are never sent even if the path is changed during a render pass
+     */
+    private volatile @Nullable PathPackets pathPackets = null;
+
+    @Override
+    @NonNull
+    public ProtocolBucket getProtocolBucket(@NonNull Player player) {
+        return this.protocolManager.getProtocolVersion(player) < PROTOCOL_1_13
+            ? ProtocolBucket.LEGACY
+            : ProtocolBucket.MODERN;
+    }
+
+    @Override
+    public void invalidate() {
+        this.pathPackets = null;
+    }
+
+    @Override
+    public int displaySection(@NonNull ProtocolBucket protocolBucket,
+                              @NonNull Player player,
+                              @NonNull Color color,
+                              float size,
+                              @NonNull ParticlePath path,
+                              int section,
+                              int step,
+                              int limit,
+                              @NonNull ParticleUtils.PointFilter filter
+    ) {
+        int start = path.getSectionStart(section);
+        if (start < 0) return 0;
+        int end = path.getSectionEnd(section);
+
+        PathPackets pathPackets = this.pathPackets;
+        if (pathPackets == null || pathPackets.path() != path) {
+            pathPackets = new PathPackets(path, new HashMap<>());
+            this.pathPackets = pathPackets;
+        }
+        PacketContainer[] packets = pathPackets.sectionPackets().computeIfAbsent(
+            new SectionPacketsKey(section, color.asRGB(), size, protocolBucket),
+            key -> createPackets(protocolBucket.isLegacy(), color, size, path.getCoordinates(), start, end)
+        );
+
+        int displayed = 0;
+        float[] coordinates = path.getCoordinates();
+        for (int point = start; point < end && displayed < limit; point += step) {
+            int i = point * 3;
+            if (!filter.test(coordinates[i], coordinates[i + 1], coordinates[i + 2])) continue;
+            this.protocolManager.sendServerPacket(player, packets[point - start]);
+            displayed++;
+        }
+        return displayed;
+    }
+
+    @NonNull
+    private PacketContainer[] createPackets(boolean legacyMode,
+                                            @NonNull Color color,
+                                            float size,
+                                            @NonNull float[] coordinates,
+                                            int start,
+                                            int end
+    ) {
+        WrappedParticle<Particle.DustOptions> particle = WrappedParticle.create(
+            Particle.REDSTONE, ParticleUtils.createDustOptions(legacyMode, color, size));
+
+        // Legacy clients take color from the offset, modern ones would use it as motion
+        float offsetX = legacyMode ? color.getRed() / 255f : 0;
+        float offsetY = legacyMode ? color.getGreen() / 255f : 0;
+        float offsetZ = legacyMode ? color.getBlue() / 255f : 0;
+        float speed = legacyMode ? 1 : 0;
+
+        PacketContainer[] packets = new PacketContainer[end - start];
+        for (int point = start; point < end; point++) {
+            int i = point * 3;
+            PacketContainer packet = this.protocolManager.createPacket(PacketType.Play.Server.WORLD_PARTICLES);
+            packet.getNewParticles().write(0, particle);
+            packet.getBooleans().write(0, false); // long distance
+            packet.getDoubles()
+                .write(0, (double) coordinates[i])
+                .write(1, (double) coordinates[i + 1])
+                .write(2, (double) coordinates[i + 2]);
+            packet.getFloat()
+                .write(0, offsetX)
+                .write(1, offsetY)
+                .write(2, offsetZ)
+                .write(3, speed);
+            packet.getIntegers().write(0, 0); // count
+            packets[point - start] = packet;
+        }
+        return packets;
+    }
+
+    /**
+     * @param sectionPackets Accessed by the rendering thread only
+     */
+    private record PathPackets(@NonNull ParticlePath path,
+                               @NonNull Map<SectionPacketsKey, PacketContainer[]> sectionPackets) {
+    }
+
+    private record SectionPacketsKey(int section, int rgb, float size, @NonNull ProtocolBucket protocolBucket) {
+    }
+}
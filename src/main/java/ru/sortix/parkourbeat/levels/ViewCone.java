@@ -0,0 +1,93 @@
+package ru.sortix.parkourbeat.levels;
+
+import lombok.NonNull;
+import org.bukkit.Location;
+import ru.sortix.parkourbeat.utils.java.ParticleUtils;
+
+/**
+ * Visibility of the path points for one viewer during one render pass. Drops points which are too far,
+ * points outside the cone around the look direction and, for runners, points left behind along the level direction
+ */
+final class ViewCone implements ParticleUtils.PointFilter {
+    /**
+     * Points closer than this distance are always displayed: they may be seen by a short head turn
+     */
+    private static final double NEAR_DISTANCE_SQUARED = 2 * 2;
+    /**
+     * Distance along the level direction behind the runner which still can be seen under the feet
+     */
+    private static final double BEHIND_TOLERANCE = 1;
+
+    private final double eyeX, eyeY, eyeZ;
+    private final double lookX, lookY, lookZ;
+    private final double maxDistanceSquared;
+    /**
+     * Cosine of the half of the cone angle or -1 if any direction is visible
+     */
+    private final double minCos;
+    private final @NonNull DirectionChecker directionChecker;
+    /**
+     * Min progress along the level direction of the visible points or negative infinity
+     */
+    private final double minProgress;
+
+    private int culledPoints = 0;
+
+    ViewCone(@NonNull Location location,
+             double eyeHeight,
+             @NonNull DirectionChecker directionChecker,
+             double maxDistanceSquared,
+             double coneAngleDegrees,
+             boolean cullBehind
+    ) {
+        this.eyeX = location.getX();
+        this.eyeY = location.getY() + eyeHeight;
+        this.eyeZ = location.getZ();
+
+        double yaw = Math.toRadians(location.getYaw());
+        double pitch = Math.toRadians(location.getPitch());
+        double horizontal = Math.cos(pitch);
+        this.lookX = -Math.sin(yaw) * horizontal;
+        this.lookY = -Math.sin(pitch);
+        this.lookZ = Math.cos(yaw) * horizontal;
+
+        this.maxDistanceSquared = maxDistanceSquared;
+        this.minCos = coneAngleDegrees >= 360 ? -1 : Math.cos(Math.toRadians(coneAngleDegrees / 2));
+        this.directionChecker = directionChecker;
+        this.minProgress = cullBehind
+            ? directionChecker.getProgress(location) - BEHIND_TOLERANCE
+            : Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public boolean test(double x, double y, double z) {
+        double dx = x - this.eyeX;
+        double dy = y - this.eyeY;
+        double dz = z - this.eyeZ;
+        double distanceSquared = dx * dx + dy * dy + dz * dz;
+        if (distanceSquared > this.maxDistanceSquared) return false;
+        if (distanceSquared <= NEAR_DISTANCE_SQUARED) return true;
+
+        if (this.directionChecker.getProgress(x, z) < this.minProgress) {
+            this.culledPoints++;
+            return false;
+        }
+        if (this.minCos > -1) {
+            double dot = dx * this.lookX + dy * this.lookY + dz * this.lookZ;
+            // Same as dot / distance < minCos, but without square root
+            if (dot < 0 ? this.minCos >= 0 || dot * dot > this.minCos * this.minCos * distanceSquared
+                : this.minCos > 0 && dot * dot < this.minCos * this.minCos * distanceSquared) {
+                this.culledPoints++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Amount of points within view distance dropped by the cone or by the level direction
+     */
+    int getCulledPoints() {
+        return this.culledPoints;
+    }
+}
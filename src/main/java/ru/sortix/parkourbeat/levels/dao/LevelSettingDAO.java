@@ -3,6 +3,7 @@ package ru.sortix.parkourbeat.levels.dao;
 import lombok.NonNull;
 import org.bukkit.World;
 import org.bukkit.WorldCreator;
+import ru.sortix.parkourbeat.levels.dao.slime.SlimeLevelsStorage;
 import ru.sortix.parkourbeat.levels.settings.GameSettings;
 import ru.sortix.parkourbeat.levels.settings.LevelSettings;
 import ru.sortix.parkourbeat.levels.settings.WorldSettings;
@@ -18,6 +19,8 @@ public interface LevelSettingDAO {
 
     @NonNull WorldSettings loadLevelWorldSettings(@NonNull File settingsDir);
 
+    @NonNull File getSettingsDirectory(@NonNull UUID levelId);
+
     void saveLevelSettings(@NonNull LevelSettings settings);
 
     @Nullable
@@ -27,6 +30,14 @@ public interface LevelSettingDAO {
 
     @NonNull WorldCreator newWorldCreator(@NonNull UUID levelId);
 
+    @NonNull File getBukkitWorldDirectory(@NonNull UUID levelId);
+
+    /**
+     * @return Storage of the level worlds in slime format or null if levels are stored in Anvil format only
+     */
+    @Nullable
+    SlimeLevelsStorage getSlimeStorage();
+
     boolean isLevelWorld(@NonNull World world);
 
     @NonNull Collection<GameSettings> loadAllAvailableLevelGameSettingsSync();
@@ -1,5 +1,6 @@
 package ru.sortix.parkourbeat.levels.dao.files;
 
+import lombok.Getter;
 import lombok.NonNull;
 import org.bukkit.World;
 import org.bukkit.WorldCreator;
@@ -8,6 +9,7 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import ru.sortix.parkourbeat.ParkourBeat;
 import ru.sortix.parkourbeat.levels.LevelsManager;
 import ru.sortix.parkourbeat.levels.dao.LevelSettingDAO;
+import ru.sortix.parkourbeat.levels.dao.slime.SlimeLevelsStorage;
 import ru.sortix.parkourbeat.levels.settings.GameSettings;
 import ru.sortix.parkourbeat.levels.settings.LevelSettings;
 import ru.sortix.parkourbeat.levels.settings.WorldSettings;
@@ -32,6 +34,9 @@ public class FileLevelSettingDAO implements LevelSettingDAO {
     private final GameSettingsDAO gameSettingsDAO;
     private final WorldSettingsDAO worldSettingsDAO;
 
+    @Getter
+    private final @Nullable SlimeLevelsStorage slimeStorage;
+
     public FileLevelSettingDAO(@NonNull LevelsManager levelsManager) {
         this.plugin = levelsManager.getPlugin();
 
@@ -43,6 +48,21 @@ public class FileLevelSettingDAO implements LevelSettingDAO {
 
         this.gameSettingsDAO = new GameSettingsDAO(this.plugin);
         this.worldSettingsDAO = new WorldSettingsDAO();
+        this.slimeStorage = this.isSlimeStorageEnabled()
+            ? new SlimeLevelsStorage(this.plugin, this.levelsDirRelativeDir)
+            : null;
+    }
+
+    private boolean isSlimeStorageEnabled() {
+        String format = this.plugin.getConfig().getString("levels_storage.format", "anvil");
+        if (format.equalsIgnoreCase("anvil")) return false;
+        if (!format.equalsIgnoreCase("slime")) {
+            throw new IllegalArgumentException("Wrong levels storage format: " + format);
+        }
+        if (this.plugin.getServer().getPluginManager().isPluginEnabled(SlimeLevelsStorage.PLUGIN_NAME)) return true;
+        this.plugin.getLogger().severe("Plugin " + SlimeLevelsStorage.PLUGIN_NAME + " not found,"
+            + " levels are stored in Anvil format");
+        return false;
     }
 
     private static void deleteDirectory(@NonNull File directory) {
@@ -59,7 +79,7 @@ public class FileLevelSettingDAO implements LevelSettingDAO {
     @Override
     @Nullable
     public LevelSettings loadLevelSettings(@NonNull UUID levelId, @Nullable GameSettings gameSettings) {
-        World world = this.plugin.getServer().getWorld(getBukkitWorldName(levelId));
+        World world = this.getBukkitWorld(levelId);
         if (world == null) return null;
 
         File settingsDir = getSettingsDirectory(levelId);
@@ -105,7 +125,9 @@ public class FileLevelSettingDAO implements LevelSettingDAO {
     @Override
     @Nullable
     public World getBukkitWorld(@NonNull UUID levelId) {
-        return this.plugin.getServer().getWorld(this.getBukkitWorldName(levelId));
+        World world = this.plugin.getServer().getWorld(this.getBukkitWorldName(levelId));
+        if (world != null || this.slimeStorage == null) return world;
+        return this.plugin.getServer().getWorld(this.slimeStorage.getWorldName(levelId));
     }
 
     @Override
@@ -163,11 +185,13 @@ public class FileLevelSettingDAO implements LevelSettingDAO {
         }
     }
 
+    @Override
     @NonNull
-    private File getSettingsDirectory(@NonNull UUID levelId) {
+    public File getSettingsDirectory(@NonNull UUID levelId) {
         return new File(getBukkitWorldDirectory(levelId).getAbsoluteFile(), "parkourbeat");
     }
 
+    @Override
     @NonNull
     public File getBukkitWorldDirectory(@NonNull UUID levelId) {
         return new File(this.levelsDirRelativeDir, levelId.toString());
@@ -181,6 +205,7 @@ public class FileLevelSettingDAO implements LevelSettingDAO {
 
     @Override
     public boolean isLevelWorld(@NonNull World world) {
+        if (this.slimeStorage != null && this.slimeStorage.getLevelId(world) != null) return true;
         try {
             return world.getWorldFolder().getParentFile().getCanonicalFile().equals(this.levelsDirAbsoluteFile);
         } catch (IOException e) {
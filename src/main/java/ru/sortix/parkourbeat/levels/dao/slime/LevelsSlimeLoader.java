@@ -0,0 +1,122 @@
+package ru.sortix.parkourbeat.levels.dao.slime;
+
+import com.grinderwolf.swm.api.exceptions.UnknownWorldException;
+import com.grinderwolf.swm.api.exceptions.WorldInUseException;
+import com.grinderwolf.swm.api.loaders.SlimeLoader;
+import lombok.NonNull;
+import ru.sortix.parkourbeat.utils.StringUtils;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps slime worlds next to the settings of their levels: "levels/&lt;uuid&gt;/world.slime".
+ * Worlds are locked in memory only, levels are not shared between servers
+ */
+final class LevelsSlimeLoader implements SlimeLoader {
+    private static final String WORLD_NAME_PREFIX = "pb_level_";
+    static final String FILE_NAME = "world.slime";
+
+    private final @NonNull File levelsDir;
+    private final @NonNull Set<String> lockedWorlds = ConcurrentHashMap.newKeySet();
+
+    LevelsSlimeLoader(@NonNull File levelsDir) {
+        this.levelsDir = levelsDir;
+    }
+
+    @NonNull
+    static String getWorldName(@NonNull UUID levelId) {
+        return WORLD_NAME_PREFIX + levelId;
+    }
+
+    @Nullable
+    static UUID getLevelId(@NonNull String worldName) {
+        if (!worldName.startsWith(WORLD_NAME_PREFIX)) return null;
+        return StringUtils.parseUUID(worldName.substring(WORLD_NAME_PREFIX.length()));
+    }
+
+    @NonNull
+    File getFile(@NonNull UUID levelId) {
+        return new File(new File(this.levelsDir, levelId.toString()), FILE_NAME);
+    }
+
+    @NonNull
+    private File getFile(@NonNull String worldName) throws IOException {
+        UUID levelId = getLevelId(worldName);
+        if (levelId == null) throw new IOException("Not a level world: " + worldName);
+        return this.getFile(levelId);
+    }
+
+    @Override
+    public byte[] loadWorld(String worldName, boolean readOnly)
+        throws UnknownWorldException, WorldInUseException, IOException {
+        File file = this.getFile(worldName);
+        if (!file.isFile()) throw new UnknownWorldException(worldName);
+        if (!readOnly && !this.lockedWorlds.add(worldName)) throw new WorldInUseException(worldName);
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            if (!readOnly) this.lockedWorlds.remove(worldName);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean worldExists(String worldName) {
+        UUID levelId = getLevelId(worldName);
+        return levelId != null && this.getFile(levelId).isFile();
+    }
+
+    @Override
+    public List<String> listWorlds() throws IOException {
+        File[] levelDirs = this.levelsDir.listFiles();
+        if (levelDirs == null) throw new IOException("Unable to get levels directory content: " + this.levelsDir);
+        List<String> result = new ArrayList<>();
+        for (File levelDir : levelDirs) {
+            UUID levelId = StringUtils.parseUUID(levelDir.getName());
+            if (levelId == null || !this.getFile(levelId).isFile()) continue;
+            result.add(getWorldName(levelId));
+        }
+        return result;
+    }
+
+    @Override
+    public void saveWorld(String worldName, byte[] serializedWorld, boolean lock) throws IOException {
+        File file = this.getFile(worldName);
+        File tempFile = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(tempFile.toPath(), serializedWorld);
+        // Level is never left without its world if the server stops in the middle of saving
+        Files.move(tempFile.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (lock) this.lockedWorlds.add(worldName);
+    }
+
+    @Override
+    public void unlockWorld(String worldName) throws UnknownWorldException, IOException {
+        if (!this.getFile(worldName).isFile()) throw new UnknownWorldException(worldName);
+        this.lockedWorlds.remove(worldName);
+    }
+
+    @Override
+    public boolean isWorldLocked(String worldName) throws UnknownWorldException, IOException {
+        if (!this.getFile(worldName).isFile()) throw new UnknownWorldException(worldName);
+        return this.lockedWorlds.contains(worldName);
+    }
+
+    @Override
+    public void deleteWorld(String worldName) throws UnknownWorldException, IOException {
+        File file = this.getFile(worldName);
+        if (!file.isFile()) throw new UnknownWorldException(worldName);
+        Files.delete(file.toPath());
+        this.lockedWorlds.remove(worldName);
+    }
+}
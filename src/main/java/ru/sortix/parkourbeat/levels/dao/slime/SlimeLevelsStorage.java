@@ -0,0 +1,262 @@
+package ru.sortix.parkourbeat.levels.dao.slime;
+
+import com.grinderwolf.swm.api.SlimePlugin;
+import com.grinderwolf.swm.api.world.SlimeWorld;
+import com.grinderwolf.swm.api.world.properties.SlimeProperties;
+import com.grinderwolf.swm.api.world.properties.SlimePropertyMap;
+import lombok.NonNull;
+import org.bukkit.Server;
+import org.bukkit.World;
+import ru.sortix.parkourbeat.ParkourBeat;
+import ru.sortix.parkourbeat.world.WorldsManager;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Level worlds in the slime format of SlimeWorldManager. Levels are tiny cuboids, so each world is stored
+ * as a single compact file instead of the region files and is loaded in memory.
+ * Levels without the slime file are still loaded from their Anvil directories until migrated
+ */
+public class SlimeLevelsStorage {
+    public static final String PLUGIN_NAME = "SlimeWorldManager";
+
+    private final @NonNull Logger logger;
+    private final @NonNull Server server;
+    private final @NonNull SlimePlugin slimePlugin;
+    private final @NonNull LevelsSlimeLoader loader;
+    private final @NonNull Executor syncExecutor;
+    private final @NonNull Executor asyncExecutor;
+    /**
+     * Serialized world imported from the template directory once. Slime files don't contain world names,
+     * so new levels get a copy of it without parsing the Anvil template again
+     */
+    private volatile byte[] templateData = null;
+
+    public SlimeLevelsStorage(@NonNull ParkourBeat plugin, @NonNull File levelsDir) {
+        this.logger = plugin.getLogger();
+        this.server = plugin.getServer();
+        this.slimePlugin = (SlimePlugin) this.server.getPluginManager().getPlugin(PLUGIN_NAME);
+        if (this.slimePlugin == null) {
+            throw new IllegalStateException("Plugin " + PLUGIN_NAME + " not found");
+        }
+        this.loader = new LevelsSlimeLoader(levelsDir);
+        WorldsManager worldsManager = plugin.get(WorldsManager.class);
+        this.syncExecutor = worldsManager.getSyncExecutor();
+        this.asyncExecutor = worldsManager.getAsyncExecutor();
+    }
+
+    public boolean hasLevelWorld(@NonNull UUID levelId) {
+        return this.loader.getFile(levelId).isFile();
+    }
+
+    /**
+     * @return Size of the slime file in bytes or 0 if the level is not migrated
+     */
+    public long getLevelWorldSize(@NonNull UUID levelId) {
+        return this.loader.getFile(levelId).length();
+    }
+
+    @NonNull
+    public String getWorldName(@NonNull UUID levelId) {
+        return LevelsSlimeLoader.getWorldName(levelId);
+    }
+
+    @Nullable
+    public UUID getLevelId(@NonNull World world) {
+        return LevelsSlimeLoader.getLevelId(world.getName());
+    }
+
+    /**
+     * Writes the template directory as the world of the new level
+     */
+    @NonNull
+    public CompletableFuture<World> createLevelWorld(@NonNull UUID levelId,
+                                                     @NonNull File templateDir,
+                                                     @NonNull World.Environment environment) {
+        String worldName = this.getWorldName(levelId);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                this.writeTemplate(templateDir, worldName);
+                return this.slimePlugin.loadWorld(this.loader, worldName, false, createProperties(environment));
+            } catch (Exception e) {
+                this.logger.log(Level.SEVERE, "Unable to create slime world \"" + worldName + "\""
+                    + " from directory " + templateDir.getAbsolutePath(), e);
+                return null;
+            }
+        }, this.asyncExecutor).thenApplyAsync(this::generateWorld, this.syncExecutor);
+    }
+
+    private void writeTemplate(@NonNull File templateDir, @NonNull String worldName) throws Exception {
+        byte[] templateData = this.templateData;
+        if (templateData == null) {
+            synchronized (this) {
+                templateData = this.templateData;
+                if (templateData == null) {
+                    this.slimePlugin.importWorld(templateDir, worldName, this.loader);
+                    this.templateData = this.loader.loadWorld(worldName, true);
+                    return;
+                }
+            }
+        }
+        this.loader.saveWorld(worldName, templateData, false);
+    }
+
+    /**
+     * Reads and deserializes the slime file asynchronously, only the world creation takes the main thread
+     */
+    @NonNull
+    public CompletableFuture<World> loadLevelWorld(@NonNull UUID levelId, @NonNull World.Environment environment) {
+        String worldName = this.getWorldName(levelId);
+        World loadedWorld = this.server.getWorld(worldName);
+        if (loadedWorld != null) return CompletableFuture.completedFuture(loadedWorld);
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.slimePlugin.loadWorld(this.loader, worldName, false, createProperties(environment));
+            } catch (Exception e) {
+                this.logger.log(Level.SEVERE, "Unable to load slime world \"" + worldName + "\"", e);
+                return null;
+            }
+        }, this.asyncExecutor).thenApplyAsync(this::generateWorld, this.syncExecutor);
+    }
+
+    @Nullable
+    private World generateWorld(@Nullable SlimeWorld slimeWorld) {
+        if (slimeWorld == null) return null;
+        World world = this.server.getWorld(slimeWorld.getName());
+        if (world != null) return world;
+
+        try {
+            this.slimePlugin.generateWorld(slimeWorld);
+            world = this.server.getWorld(slimeWorld.getName());
+            if (world != null) return world;
+            throw new IllegalArgumentException("Bukkit API result is null");
+        } catch (Exception e) {
+            this.logger.log(Level.SEVERE, "Unable to generate slime world \"" + slimeWorld.getName() + "\"", e);
+        }
+        try {
+            this.loader.unlockWorld(slimeWorld.getName());
+        } catch (Exception e) {
+            this.logger.log(Level.WARNING, "Unable to unlock slime world \"" + slimeWorld.getName() + "\"", e);
+        }
+        return null;
+    }
+
+    @NonNull
+    private static SlimePropertyMap createProperties(@NonNull World.Environment environment) {
+        SlimePropertyMap properties = new SlimePropertyMap();
+        properties.setValue(SlimeProperties.ENVIRONMENT, environment.name().toLowerCase(Locale.ROOT));
+        properties.setValue(SlimeProperties.DIFFICULTY, "peaceful");
+        properties.setValue(SlimeProperties.ALLOW_ANIMALS, false);
+        properties.setValue(SlimeProperties.ALLOW_MONSTERS, false);
+        properties.setValue(SlimeProperties.PVP, false);
+        return properties;
+    }
+
+    /**
+     * Converts the Anvil world of the unloaded level to the slime file. Anvil data is deleted
+     * only after the written file is read back successfully
+     *
+     * @param levelDir    Anvil world directory of the level
+     * @param settingsDir Directory inside the world directory which must be kept
+     * @return Result or null if the level was not migrated
+     */
+    @NonNull
+    public CompletableFuture<MigrationResult> migrateLevelWorld(@NonNull UUID levelId,
+                                                                @NonNull File levelDir,
+                                                                @NonNull File settingsDir) {
+        String worldName = this.getWorldName(levelId);
+        Path levelPath = levelDir.toPath().toAbsolutePath().normalize();
+        Path settingsPath = settingsDir.toPath().toAbsolutePath().normalize();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                long anvilBytes = this.getAnvilDataSize(levelPath, settingsPath);
+                this.slimePlugin.importWorld(levelDir, worldName, this.loader);
+
+                long startedAtNanos = System.nanoTime();
+                this.slimePlugin.loadWorld(this.loader, worldName, true, createProperties(World.Environment.NORMAL));
+                long readNanos = System.nanoTime() - startedAtNanos;
+
+                this.deleteAnvilData(levelPath, settingsPath);
+                return new MigrationResult(anvilBytes, this.getLevelWorldSize(levelId), readNanos);
+            } catch (Exception e) {
+                this.logger.log(Level.SEVERE, "Unable to migrate level " + levelId + " to slime format", e);
+                return null;
+            }
+        }, this.asyncExecutor);
+    }
+
+    private long getAnvilDataSize(@NonNull Path levelDir, @NonNull Path settingsDir) throws IOException {
+        AtomicLong result = new AtomicLong();
+        Files.walkFileTree(levelDir, new AnvilDataVisitor(levelDir, settingsDir) {
+            @Override
+            public FileVisitResult visitFile(@NonNull Path file, @NonNull BasicFileAttributes attrs) {
+                if (!this.isSlimeFile(file)) result.addAndGet(attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return result.get();
+    }
+
+    private void deleteAnvilData(@NonNull Path levelDir, @NonNull Path settingsDir) throws IOException {
+        Files.walkFileTree(levelDir, new AnvilDataVisitor(levelDir, settingsDir) {
+            @Override
+            public FileVisitResult visitFile(@NonNull Path file, @NonNull BasicFileAttributes attrs)
+                throws IOException {
+                if (!this.isSlimeFile(file)) Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(@NonNull Path dir, @Nullable IOException e) throws IOException {
+                if (e != null) throw e;
+                if (!dir.equals(levelDir)) Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Skips the settings directory of the level. Paths must be absolute and normalized
+     */
+    private static class AnvilDataVisitor extends SimpleFileVisitor<Path> {
+        private final @NonNull Path slimeFile;
+        private final @NonNull Path settingsDir;
+
+        private AnvilDataVisitor(@NonNull Path levelDir, @NonNull Path settingsDir) {
+            this.slimeFile = levelDir.resolve(LevelsSlimeLoader.FILE_NAME);
+            this.settingsDir = settingsDir;
+        }
+
+        protected boolean isSlimeFile(@NonNull Path file) {
+            return file.equals(this.slimeFile);
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(@NonNull Path dir, @NonNull BasicFileAttributes attrs) {
+            return dir.equals(this.settingsDir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+        }
+    }
+
+    /**
+     * @param anvilBytes Size of the deleted Anvil data
+     * @param slimeBytes Size of the slime file
+     * @param readNanos  Time of reading and deserializing the slime file
+     */
+    public record MigrationResult(long anvilBytes, long slimeBytes, long readNanos) {
+    }
+}
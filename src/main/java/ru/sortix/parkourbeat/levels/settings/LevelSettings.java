@@ -1,5 +1,6 @@
 package ru.sortix.parkourbeat.levels.settings;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import net.kyori.adventure.text.Component;
@@ -8,6 +9,7 @@ import org.bukkit.World;
 import ru.sortix.parkourbeat.ParkourBeat;
 import ru.sortix.parkourbeat.data.Settings;
 import ru.sortix.parkourbeat.levels.DirectionChecker;
+import ru.sortix.parkourbeat.levels.MovementSegments;
 import ru.sortix.parkourbeat.levels.ParticleController;
 
 import java.util.UUID;
@@ -22,6 +24,8 @@ public class LevelSettings {
     private final double startPosition, finishPosition;
     private final double minPosition, maxPosition;
     private final double totalLevelDistance;
+    @Getter(AccessLevel.NONE)
+    private volatile MovementSegments movementSegments = null;
 
     public LevelSettings(@NonNull ParkourBeat plugin,
                          @NonNull World world,
@@ -30,7 +34,7 @@ public class LevelSettings {
     ) {
         this.worldSettings = worldSettings;
         this.gameSettings = gameSettings;
-        this.directionChecker = new DirectionChecker(worldSettings.getDirection());
+        this.directionChecker = DirectionChecker.of(worldSettings.getDirection());
         this.particleController = new ParticleController(plugin, world, this.directionChecker);
 
         this.startWaypoint = worldSettings.getStartWaypoint().toLocation(world);
@@ -76,10 +80,31 @@ public class LevelSettings {
     }
 
     public void updateParticleLocations() {
+        this.invalidateMovementSegments();
         this.getParticleController()
             .loadParticleLocations(this.getWorldSettings().getWaypoints());
     }
 
+    /**
+     * @return Segments table of the current waypoints, shared by all runners of the level
+     */
+    @NonNull
+    public MovementSegments getMovementSegments() {
+        MovementSegments result = this.movementSegments;
+        if (result == null) {
+            result = MovementSegments.compile(this.worldSettings.getWaypoints(), this.directionChecker);
+            this.movementSegments = result;
+        }
+        return result;
+    }
+
+    /**
+     * Must be called after waypoints modification. Games already started keep the previous table
+     */
+    public void invalidateMovementSegments() {
+        this.movementSegments = null;
+    }
+
     @NonNull
     public Location getStartWaypointLoc() {
         return this.startWaypoint;
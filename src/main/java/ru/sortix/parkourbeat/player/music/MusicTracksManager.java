@@ -6,9 +6,9 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import ru.sortix.parkourbeat.ParkourBeat;
-import ru.sortix.parkourbeat.game.Game;
 import ru.sortix.parkourbeat.inventory.type.editor.SelectSongMenu;
 import ru.sortix.parkourbeat.lifecycle.PluginManager;
 import ru.sortix.parkourbeat.player.music.platform.AMusicPlatform;
@@ -18,28 +18,28 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class MusicTracksManager implements PluginManager {
-    private static final int SOUND_PIECES_SENDING_PERIOD_MILLS = 1;
-
     private final @NonNull ParkourBeat plugin;
     @Getter
     private final @NonNull MusicPlatform platform;
-    private final ScheduledExecutorService tracksPiecesSender = Executors.newSingleThreadScheduledExecutor();
-    private final List<Game> gamesWithTrackPieces = new CopyOnWriteArrayList<>();
+    /**
+     * Null if track pieces are sent only after crossing their boundaries
+     */
+    @Getter
+    private final @Nullable TrackPiecesPrediction piecesPrediction;
 
     public MusicTracksManager(@SuppressWarnings("unused") @NonNull ParkourBeat plugin) {
         this.plugin = plugin;
         this.platform = new AMusicPlatform();
+        ConfigurationSection predictionConfig =
+            plugin.getConfig().getConfigurationSection("track_pieces_prediction");
+        this.piecesPrediction = predictionConfig == null || !predictionConfig.getBoolean("enabled", true)
+            ? null
+            : new TrackPiecesPrediction(plugin.getLogger(), predictionConfig);
         this.reloadAllTracksListAndMenus();
-        this.tracksPiecesSender.scheduleAtFixedRate(this::sendTracksPieces,
-            SOUND_PIECES_SENDING_PERIOD_MILLS, SOUND_PIECES_SENDING_PERIOD_MILLS, TimeUnit.MILLISECONDS);
     }
 
     private void reloadAllTracksListAndMenus() {
@@ -139,27 +139,8 @@ public class MusicTracksManager implements PluginManager {
         return result;
     }
 
-    public void setTrackPiecesSendingEnabled(@NonNull Game game, boolean enabled) {
-        if (enabled) {
-            this.gamesWithTrackPieces.add(game);
-        } else {
-            this.gamesWithTrackPieces.remove(game);
-        }
-    }
-
-    private void sendTracksPieces() {
-        try {
-            for (Game game : this.gamesWithTrackPieces) {
-                game.tryToSendTrackPiece();
-            }
-        } catch (Exception e) {
-            this.plugin.getLogger().log(Level.SEVERE, "Unable to send track pieces:", e);
-        }
-    }
-
     @Override
     public void disable() {
-        this.tracksPiecesSender.shutdown();
-        this.gamesWithTrackPieces.clear();
+        if (this.piecesPrediction != null) this.piecesPrediction.shutdown();
     }
 }
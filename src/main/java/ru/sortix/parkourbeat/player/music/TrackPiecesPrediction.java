@@ -0,0 +1,79 @@
+package ru.sortix.parkourbeat.player.music;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Options of the predictive track pieces sending and errors of the predictions.
+ * Error is the difference between the moment the piece reaches the client
+ * and the moment the player crosses its boundary, positive if the piece is late
+ */
+@Getter
+public class TrackPiecesPrediction {
+    private final @NonNull Logger logger;
+    /**
+     * Pieces are sent earlier by the ping of the player, but not more than by this value
+     */
+    private final long maxLeadNanos;
+    /**
+     * Pieces are scheduled only if expected to be sent within this time, otherwise the next packets are awaited
+     */
+    private final long horizonNanos;
+    private final @NonNull ScheduledExecutorService scheduler;
+    private final @NonNull LongAdder measuredPieces = new LongAdder();
+    private final @NonNull LongAdder latePieces = new LongAdder();
+    private final @NonNull LongAdder errorsSumNanos = new LongAdder();
+    private final @NonNull LongAdder absErrorsSumNanos = new LongAdder();
+    private final @NonNull AtomicLong lastErrorNanos = new AtomicLong();
+
+    TrackPiecesPrediction(@NonNull Logger logger, @NonNull ConfigurationSection config) {
+        this.logger = logger;
+        this.maxLeadNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong("max_lead_millis", 300));
+        this.horizonNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong("horizon_millis", 100));
+        if (this.maxLeadNanos < 0) {
+            throw new IllegalArgumentException("Wrong max lead: " + config.getLong("max_lead_millis"));
+        }
+        if (this.horizonNanos < 0) {
+            throw new IllegalArgumentException("Wrong horizon: " + config.getLong("horizon_millis"));
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ParkourBeat Track Pieces");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void recordError(long errorNanos) {
+        this.measuredPieces.increment();
+        if (errorNanos > 0) this.latePieces.increment();
+        this.errorsSumNanos.add(errorNanos);
+        this.absErrorsSumNanos.add(Math.abs(errorNanos));
+        this.lastErrorNanos.set(errorNanos);
+        if (this.logger.isLoggable(Level.FINE)) {
+            this.logger.fine("Track piece prediction error: " + errorNanos / 1_000_000.0 + " ms");
+        }
+    }
+
+    public double getMeanErrorMillis() {
+        long measured = this.measuredPieces.sum();
+        return measured == 0 ? 0 : this.errorsSumNanos.sum() / 1_000_000.0 / measured;
+    }
+
+    public double getMeanAbsErrorMillis() {
+        long measured = this.measuredPieces.sum();
+        return measured == 0 ? 0 : this.absErrorsSumNanos.sum() / 1_000_000.0 / measured;
+    }
+
+    void shutdown() {
+        this.scheduler.shutdownNow();
+    }
+}
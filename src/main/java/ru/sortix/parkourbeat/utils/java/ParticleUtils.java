@@ -1,45 +1,85 @@
 package ru.sortix.parkourbeat.utils.java;
 
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 import org.bukkit.Color;
-import org.bukkit.Location;
 import org.bukkit.Particle;
 import org.bukkit.entity.Player;
 
 @UtilityClass
 public class ParticleUtils {
+    @Getter
     private final boolean dustOptionsSupport = ClassUtils.isClassPresent("org.bukkit.Particle$DustOptions");
 
-    public void displayRedstoneParticles(
+    /**
+     * @param step   Display every N-th point
+     * @param limit  Max amount of particles to display
+     * @param filter Points which should be displayed to the player
+     * @return Amount of displayed particles
+     */
+    public int displayRedstoneParticles(
         boolean legacyMode,
         @NonNull Player player,
         @NonNull Color color,
         float size,
-        @NonNull Iterable<Location> locations,
-        double maxDistanceSquared
+        @NonNull float[] coordinates,
+        int fromPoint,
+        int toPoint,
+        int step,
+        int limit,
+        @NonNull PointFilter filter
     ) {
-        Location playerLoc = player.getLocation();
-
         double offsetX = color.getRed() / 255.0;
         double offsetY = color.getGreen() / 255.0;
         double offsetZ = color.getBlue() / 255.0;
 
+        int displayed = 0;
         if (dustOptionsSupport) {
-            if (legacyMode) { // For clients 1.12.2 and older
-                size = 1.0f; // Not actually a size, but colors contrast
-                if (color.getRed() == 0) color = color.setRed(1);
+            Particle.DustOptions dustOptions = createDustOptions(legacyMode, color, size);
+            if (!legacyMode) { // Modern clients take color from the dust options and use offset as motion
+                offsetX = offsetY = offsetZ = 0;
             }
-            Particle.DustOptions dustOptions = new Particle.DustOptions(color, size);
-            for (Location location : locations) {
-                if (location.distanceSquared(playerLoc) > maxDistanceSquared) continue;
-                player.spawnParticle(Particle.REDSTONE, location, 0, offsetX, offsetY, offsetZ, 1, dustOptions);
+            double speed = legacyMode ? 1 : 0;
+            for (int i = fromPoint * 3, end = toPoint * 3; i < end && displayed < limit; i += step * 3) {
+                double x = coordinates[i];
+                double y = coordinates[i + 1];
+                double z = coordinates[i + 2];
+                if (!filter.test(x, y, z)) continue;
+                player.spawnParticle(Particle.REDSTONE, x, y, z, 0, offsetX, offsetY, offsetZ, speed, dustOptions);
+                displayed++;
             }
         } else {
-            for (Location location : locations) {
-                if (location.distanceSquared(playerLoc) > maxDistanceSquared) continue;
-                player.spawnParticle(Particle.REDSTONE, location, 0, offsetX, offsetY, offsetZ, 1);
+            for (int i = fromPoint * 3, end = toPoint * 3; i < end && displayed < limit; i += step * 3) {
+                double x = coordinates[i];
+                double y = coordinates[i + 1];
+                double z = coordinates[i + 2];
+                if (!filter.test(x, y, z)) continue;
+                player.spawnParticle(Particle.REDSTONE, x, y, z, 0, offsetX, offsetY, offsetZ, 1);
+                displayed++;
             }
         }
+        return displayed;
+    }
+
+    @NonNull
+    public Particle.DustOptions createDustOptions(boolean legacyMode, @NonNull Color color, float size) {
+        if (legacyMode) { // For clients 1.12.2 and older
+            size = 1.0f; // Not actually a size, but colors contrast
+            if (color.getRed() == 0) color = color.setRed(1);
+        }
+        return new Particle.DustOptions(color, size);
+    }
+
+    public double distanceSquared(double x1, double y1, double z1, double x2, double y2, double z2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        double dz = z1 - z2;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @FunctionalInterface
+    public interface PointFilter {
+        boolean test(double x, double y, double z);
     }
 }
@@ -0,0 +1,151 @@
+package ru.sortix.parkourbeat.world;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * World directory packed in memory once and written out as new worlds without reading the disk.
+ * Files are kept as runs of non-zero blocks: region files are mostly empty sectors,
+ * which are left as holes of the sparse target files instead of being written.
+ * <p>
+ * Files are not hard linked to the template, because region files and settings are rewritten in place
+ * and the changes would leak into the template and other worlds
+ */
+public class WorldTemplate {
+    /**
+     * Sector size of the region files
+     */
+    private static final int BLOCK_SIZE = 4096;
+
+    @Getter
+    private final @NonNull Path sourceDir;
+    private final @NonNull List<Path> directories;
+    private final @NonNull List<TemplateFile> files;
+    /**
+     * Total size of the files in bytes
+     */
+    @Getter
+    private final long size;
+    /**
+     * Size of the non-zero data kept in memory in bytes
+     */
+    @Getter
+    private final long storedSize;
+
+    private WorldTemplate(@NonNull Path sourceDir,
+                          @NonNull List<Path> directories,
+                          @NonNull List<TemplateFile> files) {
+        this.sourceDir = sourceDir;
+        this.directories = directories;
+        this.files = files;
+        long size = 0;
+        long storedSize = 0;
+        for (TemplateFile file : files) {
+            size += file.size();
+            for (DataRun run : file.runs()) {
+                storedSize += run.data().capacity();
+            }
+        }
+        this.size = size;
+        this.storedSize = storedSize;
+    }
+
+    @NonNull
+    public static WorldTemplate pack(@NonNull Path sourceDir) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        List<TemplateFile> files = new ArrayList<>();
+        Files.walkFileTree(sourceDir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(@NonNull Path dir, @NonNull BasicFileAttributes attrs) {
+                // Parents are visited first, so they are created first
+                if (!dir.equals(sourceDir)) directories.add(sourceDir.relativize(dir));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(@NonNull Path file, @NonNull BasicFileAttributes attrs)
+                throws IOException {
+                files.add(packFile(sourceDir.relativize(file), Files.readAllBytes(file)));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return new WorldTemplate(sourceDir, directories, files);
+    }
+
+    @NonNull
+    private static TemplateFile packFile(@NonNull Path path, byte @NonNull [] content) {
+        List<long[]> ranges = new ArrayList<>();
+        int dataLength = 0;
+        for (int start = 0; start < content.length; start += BLOCK_SIZE) {
+            int end = Math.min(start + BLOCK_SIZE, content.length);
+            // Last block is always written, so the file gets its full length
+            if (end != content.length && isZero(content, start, end)) continue;
+            long[] lastRange = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (lastRange != null && lastRange[1] == start) {
+                lastRange[1] = end;
+            } else {
+                ranges.add(new long[]{start, end});
+            }
+            dataLength += end - start;
+        }
+
+        ByteBuffer data = ByteBuffer.allocateDirect(dataLength);
+        List<DataRun> runs = new ArrayList<>(ranges.size());
+        for (long[] range : ranges) {
+            int offset = data.position();
+            int length = (int) (range[1] - range[0]);
+            data.put(content, (int) range[0], length);
+            runs.add(new DataRun(range[0], data.slice(offset, length).asReadOnlyBuffer()));
+        }
+        return new TemplateFile(path, content.length, runs);
+    }
+
+    private static boolean isZero(byte @NonNull [] content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (content[i] != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Thread-safe, many worlds may be unpacked at once
+     *
+     * @param targetDir Directory of the new world, must not exist
+     */
+    public void unpack(@NonNull Path targetDir) throws IOException {
+        Files.createDirectory(targetDir);
+        for (Path directory : this.directories) {
+            Files.createDirectory(targetDir.resolve(directory));
+        }
+        for (TemplateFile file : this.files) {
+            try (FileChannel channel = FileChannel.open(targetDir.resolve(file.path()),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SPARSE)) {
+                for (DataRun run : file.runs()) {
+                    ByteBuffer buffer = run.data().duplicate();
+                    long position = run.position();
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                }
+            }
+        }
+    }
+
+    private record TemplateFile(@NonNull Path path, long size, @NonNull List<DataRun> runs) {
+    }
+
+    private record DataRun(long position, @NonNull ByteBuffer data) {
+    }
+}
@@ -15,14 +15,12 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.RegisteredListener;
 import ru.sortix.parkourbeat.levels.gen.EmptyChunkGenerator;
 import ru.sortix.parkourbeat.lifecycle.PluginManager;
-import ru.sortix.parkourbeat.utils.java.CopyDirVisitor;
 import ru.sortix.parkourbeat.utils.shedule.BukkitAsyncExecutor;
 import ru.sortix.parkourbeat.utils.shedule.BukkitSyncExecutor;
 import ru.sortix.parkourbeat.utils.shedule.CurrentThreadExecutor;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -133,13 +131,13 @@ public class WorldsManager implements PluginManager, Listener {
     }
 
     @NonNull
-    public CompletableFuture<World> createWorldFromCustomDirectory(
-        @NonNull WorldCreator worldCreator, @NonNull File worldDir) {
+    public CompletableFuture<World> createWorldFromTemplate(
+        @NonNull WorldCreator worldCreator, @NonNull WorldTemplate template) {
         CompletableFuture<World> result = new CompletableFuture<>();
 
         File realWorldDir = this.getWorldDir(worldCreator);
 
-        this.copyWorldData(worldDir, realWorldDir).thenAccept(dataPrepared -> {
+        this.unpackWorldTemplate(template, realWorldDir).thenAccept(dataPrepared -> {
             if (!dataPrepared) {
                 result.complete(null);
                 return;
@@ -150,16 +148,16 @@ public class WorldsManager implements PluginManager, Listener {
     }
 
     @NonNull
-    private CompletableFuture<Boolean> copyWorldData(@NonNull File source, @NonNull File target) {
+    private CompletableFuture<Boolean> unpackWorldTemplate(@NonNull WorldTemplate template, @NonNull File target) {
         return CompletableFuture.supplyAsync(
             () -> {
                 try {
                     if (target.exists()) throw new IOException("Target directory already exist");
-                    CopyDirVisitor visitor = new CopyDirVisitor(this.logger, source.toPath(), target.toPath());
-                    Files.walkFileTree(source.toPath(), visitor);
-                    return !visitor.isFailed();
+                    template.unpack(target.toPath());
+                    return true;
                 } catch (IOException e) {
-                    this.logger.log(Level.SEVERE, "Unable to copy world data from " + source + " to " + target, e);
+                    this.logger.log(Level.SEVERE,
+                        "Unable to unpack world template " + template.getSourceDir() + " to " + target, e);
                     return false;
                 }
             },